@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.cornerstonews.webservice.benchmark.model.ItemDO;
+import com.github.cornerstonews.webservice.benchmark.model.ItemEntity;
+import com.github.cornerstonews.webservice.controller.DoConverter;
+
+/*
+ * Conversion alone, without the database: hand written vs GeneratedConverter vs reflective field copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConverterBenchmark {
+
+    @Param({ "hand", "generated", "reflective" })
+    public String converter;
+
+    private DoConverter<ItemDO, ItemEntity> doConverter;
+    private ItemEntity entity;
+    private ItemDO object;
+
+    @Setup
+    public void setup() {
+        doConverter = CrudState.converter(converter);
+        entity = new ItemEntity();
+        entity.setId(42L);
+        entity.setName("item-42");
+        entity.setDescription("benchmark item");
+        entity.setQuantity(7);
+        entity.setPrice(9.99);
+        entity.setCreated(new Date());
+        entity.setVersion(3);
+        object = doConverter.convert(entity, true);
+    }
+
+    @Benchmark
+    public ItemDO toDO() {
+        return doConverter.convert(entity, true);
+    }
+
+    @Benchmark
+    public ItemEntity toEntity() {
+        return doConverter.convert(object);
+    }
+
+    @Benchmark
+    public ItemEntity toExistingEntity() {
+        return doConverter.convert(object, entity);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.OptimisticLockException;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.cornerstonews.webservice.benchmark.model.ItemDO;
+import com.github.cornerstonews.webservice.exception.StaleEntityException;
+
+/*
+ * post / get / put / delete through AbstractWsController against H2, single threaded.
+ *
+ *  - delete is measured as postThenDelete so the table does not run dry, subtract post to estimate it
+ *  - put keeps the item name, unique validation runs but never fails. Puts losing an optimistic lock race are
+ *    counted in the conflicts column, any other failure fails the benchmark
+ *  - run with -prof gc for allocation rate (gc.alloc.rate.norm is bytes per operation)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Threads(1)
+public class CrudBenchmark {
+
+    @Benchmark
+    public ItemDO get(CrudState state) throws Exception {
+        return state.controller.get(state.randomId());
+    }
+
+    @Benchmark
+    public Object post(CrudState state) throws Exception {
+        return state.controller.post(state.newItem());
+    }
+
+    @Benchmark
+    public Long put(CrudState state, Conflicts conflicts) throws Exception {
+        Long id = state.randomId();
+        try {
+            state.controller.put(id, state.update(id));
+        } catch (StaleEntityException | OptimisticLockException e) {
+            // Lost an optimistic lock race with another thread, part of the contended cost
+            conflicts.conflicts++;
+        }
+        return id;
+    }
+
+    @Benchmark
+    public Object postThenDelete(CrudState state) throws Exception {
+        Object id = state.controller.post(state.newItem());
+        state.controller.delete(id);
+        return id;
+    }
+
+    /*
+     * Puts that lost an optimistic lock race, reported next to the score so a run dominated by conflicts shows.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Conflicts {
+
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            conflicts = 0;
+        }
+    }
+
+    /*
+     * Same operations with 8 threads sharing one controller, database and cache.
+     */
+    @Threads(8)
+    public static class Contended extends CrudBenchmark {
+    }
+}
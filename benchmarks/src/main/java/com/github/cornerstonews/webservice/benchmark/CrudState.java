@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.github.cornerstonews.webservice.benchmark.model.ItemConverter;
+import com.github.cornerstonews.webservice.benchmark.model.ItemDO;
+import com.github.cornerstonews.webservice.benchmark.model.ItemEntity;
+import com.github.cornerstonews.webservice.cache.DoCache;
+import com.github.cornerstonews.webservice.controller.DoConverter;
+import com.github.cornerstonews.webservice.controller.GeneratedConverter;
+import com.github.cornerstonews.webservice.metrics.HdrMetricsRegistry;
+
+/*
+ * One in-memory H2 database per trial, seeded with rows items.
+ *  - converter: hand written, generated (GeneratedConverter) or reflective
+ *  - cache: whether the controller reads through a DoCache
+ *  - metrics: whether the controller records into an HdrMetricsRegistry
+ */
+@State(Scope.Benchmark)
+public class CrudState {
+
+    private static final int SEED_BATCH_SIZE = 500;
+
+    @Param({ "1000" })
+    public int rows;
+
+    @Param({ "hand", "generated", "reflective" })
+    public String converter;
+
+    @Param({ "false", "true" })
+    public boolean cache;
+
+    @Param({ "false" })
+    public boolean metrics;
+
+    public EntityManagerFactory emf;
+    public ItemController controller;
+
+    private Long[] ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        emf = Persistence.createEntityManagerFactory("benchmark", properties);
+        controller = new ItemController(emf, converter(converter),
+                cache ? new DoCache<>(rows * 2L, Duration.ofMinutes(10)) : null,
+                metrics ? new HdrMetricsRegistry() : null);
+        ids = seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        emf.close();
+    }
+
+    public Long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    /*
+     * A new item with a name no other item has.
+     */
+    public ItemDO newItem() {
+        return new ItemDO(null, "item-" + UUID.randomUUID(), "benchmark item", 1, 9.99, new Date());
+    }
+
+    /*
+     * Update of an existing seeded item that keeps its unique name, so concurrent puts never conflict on it.
+     */
+    public ItemDO update(Long id) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new ItemDO(id, "seed-" + id, "updated item", random.nextInt(1000), random.nextDouble(1000), new Date());
+    }
+
+    private Long[] seed() {
+        Long[] seeded = new Long[rows];
+        EntityManager em = emf.createEntityManager();
+        try {
+            ItemEntity[] entities = new ItemEntity[rows];
+            for (int start = 0; start < rows; start += SEED_BATCH_SIZE) {
+                em.getTransaction().begin();
+                for (int i = start; i < Math.min(rows, start + SEED_BATCH_SIZE); i++) {
+                    entities[i] = new ItemEntity();
+                    entities[i].setName("seed-tmp-" + i);
+                    entities[i].setQuantity(i);
+                    entities[i].setPrice(i);
+                    entities[i].setCreated(new Date());
+                    em.persist(entities[i]);
+                }
+                em.flush();
+                for (int i = start; i < Math.min(rows, start + SEED_BATCH_SIZE); i++) {
+                    entities[i].setName("seed-" + entities[i].getId());
+                    seeded[i] = entities[i].getId();
+                }
+                em.getTransaction().commit();
+                em.clear();
+            }
+        } finally {
+            em.close();
+        }
+        return seeded;
+    }
+
+    static DoConverter<ItemDO, ItemEntity> converter(String name) {
+        switch (name) {
+        case "hand":
+            return new ItemConverter();
+        case "generated":
+            return GeneratedConverter.of(ItemDO.class, ItemEntity.class);
+        case "reflective":
+            return new ReflectiveConverter<>(ItemDO.class, ItemEntity.class);
+        default:
+            throw new IllegalArgumentException("Unknown converter: " + name);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * get / put / postThenDelete end to end: http client -> Jersey -> AbstractResource -> AbstractWsController -> H2.
+ *  The difference to the CrudBenchmark figure of the same parameters is the cost of the resource layer and http.
+ *  Any unexpected status fails the benchmark, put conflicts (409) are counted like in CrudBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Threads(1)
+public class HttpBenchmark {
+
+    @Benchmark
+    public int get(HttpState state) throws Exception {
+        return expect(state.send("GET", "/" + state.crud.randomId(), null), HttpURLConnection.HTTP_OK);
+    }
+
+    @Benchmark
+    public int put(HttpState state, CrudBenchmark.Conflicts conflicts) throws Exception {
+        Long id = state.crud.randomId();
+        int status = state.send("PUT", "/" + id, state.crud.update(id));
+        if (status == HttpURLConnection.HTTP_CONFLICT) {
+            conflicts.conflicts++;
+            return status;
+        }
+        return expect(status, HttpURLConnection.HTTP_NO_CONTENT);
+    }
+
+    @Benchmark
+    public int postThenDelete(HttpState state) throws Exception {
+        String id = state.post(state.crud.newItem());
+        return expect(state.send("DELETE", "/" + id, null), HttpURLConnection.HTTP_NO_CONTENT);
+    }
+
+    private static int expect(int status, int expected) {
+        if (status != expected) {
+            throw new IllegalStateException("Expected status " + expected + " but was " + status);
+        }
+        return status;
+    }
+}
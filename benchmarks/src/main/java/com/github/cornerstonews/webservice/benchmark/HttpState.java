@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.jdkhttp.JdkHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.cornerstonews.webservice.exception.mapper.NonExistingEntityExceptionMapper;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * ItemResource and the exception mappers served by Jersey on the JDK http server, on an ephemeral loopback port,
+ *  in front of the controller of CrudState. Requests go through HttpURLConnection with keep-alive, so the figures include json (de)serialization,
+ *  resource dispatch and the loopback round trip but not connection setup.
+ */
+@State(Scope.Benchmark)
+public class HttpState {
+
+    public CrudState crud;
+
+    private HttpServer server;
+    private String baseUrl;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Setup(Level.Trial)
+    public void setup(CrudState crud) {
+        this.crud = crud;
+        ResourceConfig config = new ResourceConfig()
+                .register(new ItemResource(crud.controller))
+                .packages(NonExistingEntityExceptionMapper.class.getPackage().getName())
+                .register(JacksonFeature.class);
+        server = JdkHttpServerFactory.createHttpServer(URI.create("http://localhost:0/"), config);
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/" + ItemResource.PATH;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /*
+     * return status of the request to path under the collection, e.g. "/42", or to the collection itself for "".
+     */
+    public int send(String method, String path, Object body) throws IOException {
+        return exchange(method, path, body).getResponseCode();
+    }
+
+    /*
+     * return id of the item created by posting the body, from the Location header.
+     */
+    public String post(Object body) throws IOException {
+        HttpURLConnection connection = exchange("POST", "", body);
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_CREATED) {
+            throw new IllegalStateException("POST answered " + connection.getResponseCode());
+        }
+        String location = connection.getHeaderField("Location");
+        return location.substring(location.lastIndexOf('/') + 1);
+    }
+
+    /*
+     * The response body is read fully so the connection goes back to the keep-alive cache.
+     */
+    private HttpURLConnection exchange(String method, String path, Object body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (body != null) {
+            byte[] json = mapper.writeValueAsBytes(body);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setFixedLengthStreamingMode(json.length);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(json);
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream response = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (response != null) {
+                byte[] buffer = new byte[4096];
+                while (response.read(buffer) != -1) {
+                    // drain
+                }
+            }
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark;
+
+import javax.persistence.EntityManagerFactory;
+
+import com.github.cornerstonews.persistence.jpa.controller.JpaController;
+import com.github.cornerstonews.webservice.benchmark.model.ItemDO;
+import com.github.cornerstonews.webservice.benchmark.model.ItemEntity;
+import com.github.cornerstonews.webservice.cache.DoCache;
+import com.github.cornerstonews.webservice.controller.AbstractWsController;
+import com.github.cornerstonews.webservice.controller.DoConverter;
+import com.github.cornerstonews.webservice.controller.UniqueConstraints;
+import com.github.cornerstonews.webservice.metrics.MetricsRegistry;
+
+/*
+ * Controller under benchmark, configured the way applications configure theirs.
+ *  The unique name constraint is declared through the metamodel so post and put pay for unique validation.
+ */
+public class ItemController extends AbstractWsController<ItemDO, ItemEntity> {
+
+    private final EntityManagerFactory emf;
+    private final JpaController<ItemEntity> jpaController;
+    private final DoConverter<ItemDO, ItemEntity> converter;
+    private final UniqueConstraints<ItemEntity> uniqueConstraints;
+    private final DoCache<ItemDO> cache;
+    private final MetricsRegistry metrics;
+
+    public ItemController(EntityManagerFactory emf, DoConverter<ItemDO, ItemEntity> converter, DoCache<ItemDO> cache, MetricsRegistry metrics) {
+        this.emf = emf;
+        this.jpaController = new JpaController<>(emf, ItemEntity.class);
+        this.converter = converter;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.uniqueConstraints = new UniqueConstraints<ItemEntity>()
+                .unique(emf.getMetamodel().entity(ItemEntity.class).getSingularAttribute("name", String.class));
+    }
+
+    @Override
+    protected JpaController<ItemEntity> getJpaController() {
+        return jpaController;
+    }
+
+    @Override
+    protected EntityManagerFactory getEntityManagerFactory() {
+        return emf;
+    }
+
+    @Override
+    protected UniqueConstraints<ItemEntity> getUniqueConstraints() {
+        return uniqueConstraints;
+    }
+
+    @Override
+    protected DoCache<ItemDO> getDoCache() {
+        return cache;
+    }
+
+    @Override
+    protected MetricsRegistry getMetricsRegistry() {
+        return metrics;
+    }
+
+    @Override
+    protected Class<ItemEntity> getEntityClass() {
+        return ItemEntity.class;
+    }
+
+    @Override
+    protected DoConverter<ItemDO, ItemEntity> getDoConverter() {
+        return converter;
+    }
+
+    @Override
+    protected ItemDO convertToDO(ItemEntity entity, boolean convertRelationships) {
+        return converter.convert(entity, convertRelationships);
+    }
+
+    @Override
+    protected ItemEntity convertToEntity(ItemDO object) {
+        return converter.convert(object);
+    }
+
+    @Override
+    protected ItemEntity convertToEntity(ItemDO object, ItemEntity entity) {
+        return converter.convert(object, entity);
+    }
+}
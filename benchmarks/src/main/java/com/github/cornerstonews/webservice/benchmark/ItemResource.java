@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import com.github.cornerstonews.webservice.benchmark.model.ItemDO;
+import com.github.cornerstonews.webservice.resource.AbstractResource;
+
+/*
+ * Resource of ItemController, registered as a singleton so every request shares the controller of the trial.
+ */
+@Path(ItemResource.PATH)
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class ItemResource extends AbstractResource<ItemDO, ItemController> {
+
+    static final String PATH = "items";
+
+    private final ItemController controller;
+
+    public ItemResource(ItemController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    protected String getUriPath() {
+        return PATH;
+    }
+
+    @Override
+    protected ItemController getController() {
+        return controller;
+    }
+}
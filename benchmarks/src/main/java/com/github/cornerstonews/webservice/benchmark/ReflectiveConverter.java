@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.cornerstonews.webservice.controller.DoConverter;
+
+/*
+ * Field by field reflective copy, the way generic bean mappers work, used as the baseline of GeneratedConverter.
+ *  Fields are resolved once, only the get / set calls are reflective.
+ */
+public class ReflectiveConverter<T, E> implements DoConverter<T, E> {
+
+    private final Class<T> doClass;
+    private final Class<E> entityClass;
+    private final List<Field[]> toDO = new ArrayList<>();
+    private final List<Field[]> toEntity = new ArrayList<>();
+
+    public ReflectiveConverter(Class<T> doClass, Class<E> entityClass) {
+        this.doClass = doClass;
+        this.entityClass = entityClass;
+        for (Field target : doClass.getDeclaredFields()) {
+            if (Modifier.isStatic(target.getModifiers())) {
+                continue;
+            }
+            try {
+                Field source = entityClass.getDeclaredField(target.getName());
+                if (source.getType() == target.getType()) {
+                    source.setAccessible(true);
+                    target.setAccessible(true);
+                    toDO.add(new Field[] { source, target });
+                    toEntity.add(new Field[] { target, source });
+                }
+            } catch (NoSuchFieldException e) {
+                // Not mapped
+            }
+        }
+    }
+
+    @Override
+    public T convert(E entity, boolean expandChild) {
+        return entity == null ? null : copy(entity, newInstance(doClass), toDO);
+    }
+
+    @Override
+    public E convert(T object) {
+        return object == null ? null : copy(object, newInstance(entityClass), toEntity);
+    }
+
+    @Override
+    public E convert(T object, E entity) {
+        return object == null ? null : copy(object, entity, toEntity);
+    }
+
+    private static <S, D> D copy(S source, D target, List<Field[]> fields) {
+        try {
+            for (Field[] pair : fields) {
+                pair[1].set(target, pair[0].get(source));
+            }
+            return target;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <X> X newInstance(Class<X> type) {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not instantiate " + type.getName(), e);
+        }
+    }
+}
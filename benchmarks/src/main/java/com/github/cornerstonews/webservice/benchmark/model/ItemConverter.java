@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.benchmark.model;
+
+import com.github.cornerstonews.webservice.controller.DoConverter;
+
+/*
+ * Hand written converter, the lower bound every other converter is measured against.
+ */
+public class ItemConverter implements DoConverter<ItemDO, ItemEntity> {
+
+    @Override
+    public ItemDO convert(ItemEntity entity, boolean expandChild) {
+        if (entity == null) {
+            return null;
+        }
+        return new ItemDO(entity.getId(), entity.getName(), entity.getDescription(), entity.getQuantity(), entity.getPrice(), entity.getCreated());
+    }
+
+    @Override
+    public ItemEntity convert(ItemDO object) {
+        return convert(object, new ItemEntity());
+    }
+
+    @Override
+    public ItemEntity convert(ItemDO object, ItemEntity entity) {
+        if (object == null) {
+            return null;
+        }
+        entity.setId(object.getId());
+        entity.setName(object.getName());
+        entity.setDescription(object.getDescription());
+        entity.setQuantity(object.getQuantity());
+        entity.setPrice(object.getPrice());
+        entity.setCreated(object.getCreated());
+        return entity;
+    }
+}
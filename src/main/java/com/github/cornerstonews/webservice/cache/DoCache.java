@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.cache;
+
+import java.time.Duration;
+import java.util.Date;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/*
+ * Bounded cache of converted DO objects keyed by primary key.
+ *
+ *  Backed by Caffeine (W-TinyLFU admission), bounded by size and expiring entries a fixed time after they were loaded.
+ *  Loads run atomically per key, so an invalidate() issued while a load is in flight waits for it and then removes
+ *  the loaded value, a stale DO is never left behind.
+ *  Cached DO objects are shared between requests and must be treated as read only.
+ *  Entries keep the version and last modification time of the entity next to the DO, so conditional requests are
+ *  answered from the cache as well.
+ */
+public class DoCache<T> {
+
+    private final Cache<Object, Entry<T>> cache;
+
+    public DoCache(long maximumSize, Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /*
+     * A cached DO object with the validators of the entity it was converted from, version and lastModified are null
+     * when the entity does not provide them.
+     */
+    public static final class Entry<T> {
+        private final T object;
+        private final String version;
+        private final Date lastModified;
+
+        public Entry(T object, String version, Date lastModified) {
+            this.object = object;
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+
+        public T getObject() {
+            return object;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public Date getLastModified() {
+            return lastModified;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        Entry<T> load(Object key) throws Exception;
+    }
+
+    public Entry<T> get(Object key, Loader<T> loader) throws Exception {
+        try {
+            return cache.get(key, k -> {
+                try {
+                    return loader.load(k);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new LoaderException(e);
+                }
+            });
+        } catch (LoaderException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    public T getIfPresent(Object key) {
+        Entry<T> entry = cache.getIfPresent(key);
+        return entry == null ? null : entry.getObject();
+    }
+
+    public void invalidate(Object key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /*
+     * Hit, miss, load and eviction counts since the cache was created.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static class LoaderException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LoaderException(Exception cause) {
+            super(cause);
+        }
+    }
+}
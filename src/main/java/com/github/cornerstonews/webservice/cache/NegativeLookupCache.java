@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.cache;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/*
+ * Short lived record of primary keys known not to exist, so repeated lookups of the same missing id skip the database.
+ *
+ *  Keep the time to live short (seconds): rows inserted by other applications or nodes are only seen once the
+ *  entry expires. Ids created through the controller are removed right away.
+ */
+public class NegativeLookupCache {
+
+    private final Cache<Object, Boolean> missing;
+
+    public NegativeLookupCache(long maximumSize, Duration timeToLive) {
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+    }
+
+    public boolean isMissing(Object key) {
+        return missing.getIfPresent(key) != null;
+    }
+
+    public void recordMissing(Object key) {
+        missing.put(key, Boolean.TRUE);
+    }
+
+    public void invalidate(Object key) {
+        missing.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        missing.invalidateAll();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.cache;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/*
+ * State deciding which reads a read replica may serve, shared by all controllers reading through the same replica.
+ *  - primary keys written within the last window: reads of them stay on the primary database until the replica has
+ *    caught up (read your writes)
+ *  - after the replica failed, all reads stay on the primary until the retry delay has passed
+ */
+public class ReplicaRouting {
+
+    private final Cache<Object, Boolean> written;
+    private volatile long retryAtNanos = System.nanoTime();
+
+    public ReplicaRouting(long maximumSize, Duration window) {
+        this.written = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void recordWrite(Object key) {
+        written.put(key, Boolean.TRUE);
+    }
+
+    public boolean isRecentlyWritten(Object key) {
+        return written.getIfPresent(key) != null;
+    }
+
+    /*
+     * Keeps reads off the replica for the given delay.
+     */
+    public void replicaFailed(Duration retryDelay) {
+        retryAtNanos = System.nanoTime() + retryDelay.toNanos();
+    }
+
+    public boolean isReplicaAvailable() {
+        return System.nanoTime() - retryAtNanos >= 0;
+    }
+}
@@ -16,38 +16,384 @@
  */
 package com.github.cornerstonews.webservice.controller;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PersistenceException;
+import javax.persistence.PessimisticLockException;
+import javax.persistence.QueryTimeoutException;
+import javax.persistence.Subgraph;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+import javax.ws.rs.core.Response.Status;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.eclipse.persistence.exceptions.DatabaseException;
 
 import com.github.cornerstonews.persistence.jpa.controller.JpaController;
+import com.github.cornerstonews.webservice.cache.DoCache;
+import com.github.cornerstonews.webservice.cache.NegativeLookupCache;
+import com.github.cornerstonews.webservice.cache.ReplicaRouting;
+import com.github.cornerstonews.webservice.cache.SingleFlight;
 import com.github.cornerstonews.webservice.exception.InputValidationException;
 import com.github.cornerstonews.webservice.exception.NonExistingEntityException;
+import com.github.cornerstonews.webservice.exception.PreExistingEntityException;
+import com.github.cornerstonews.webservice.exception.PreconditionFailedException;
+import com.github.cornerstonews.webservice.exception.StaleEntityException;
+import com.github.cornerstonews.webservice.metrics.Failure;
+import com.github.cornerstonews.webservice.metrics.MetricsRecorder;
+import com.github.cornerstonews.webservice.metrics.MetricsRegistry;
+import com.github.cornerstonews.webservice.metrics.Operation;
+import com.github.cornerstonews.webservice.metrics.Stage;
 
 public abstract class AbstractWsController<T, E> implements WsController<T> {
 
     private static final Logger log = LogManager.getLogger(AbstractWsController.class);
                     
     private static final String NON_EXISTING_ENTITY_ERROR = "Could not find Entity with id: ";
-    
+    private static final String UNIQUE_FIELDS_ERROR = "The following values are not available and must be changed. ";
+    private static final String STALE_ENTITY_ERROR = "Entity was modified by someone else, reload and retry. id: ";
+    private static final String PRECONDITION_FAILED_ERROR = "Entity does not match the request preconditions, reload and retry. id: ";
+    private static final String ID_MISMATCH_ERROR = "Missing id field in provided json object or it does not match your URI '";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static volatile Validator defaultValidator;
+    private static volatile boolean validatorUnavailable;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final long RECENT_WRITES_SIZE = 100000;
+    private static final Duration REPLICA_RETRY_DELAY = Duration.ofSeconds(5);
+    private static final ClassValue<AtomicReference<ReplicaRouting>> REPLICA_ROUTING = new ClassValue<AtomicReference<ReplicaRouting>>() {
+        @Override
+        protected AtomicReference<ReplicaRouting> computeValue(Class<?> type) {
+            return new AtomicReference<>();
+        }
+    };
+
+    private volatile Class<E> entityClass;
+    private volatile MetricsRecorder metricsRecorder;
+    private volatile TypeMetadata entityMetadata;
+    private volatile Boolean fetchPlanSupported;
+
     /*
      * return instance of JpaController
      */
     protected abstract JpaController<E> getJpaController();
 
+    /*
+     * return EntityManagerFactory used by bulk operations to write a whole chunk in a single transaction.
+     *
+     *  Defaults to null, in which case bulk operations fall back to one JpaController call per item.
+     *  Enable 'eclipselink.jdbc.batch-writing' on the persistence unit so each chunk is sent as JDBC batches.
+     */
+    protected EntityManagerFactory getEntityManagerFactory() {
+        return null;
+    }
+
+    /*
+     * return JpaController of a read only replica, or null to read from getJpaController().
+     *
+     *  get(), getVersioned() and isExistingEntity() read from the replica, except for ids written through controllers
+     *  sharing getReplicaRouting() within getReadAfterWriteWindow(), while isReplicaLagging() is true, and for a few
+     *  seconds after the replica failed. An id the replica does not find is looked up on the primary before answering
+     *  404. Writes, including the entity their write condition is checked on, always read the primary.
+     */
+    protected JpaController<E> getReadJpaController() {
+        return null;
+    }
+
+    /*
+     * return EntityManagerFactory of a read only replica used by list() and fetch plan reads, or null to use
+     * getEntityManagerFactory(). Routed the same way as getReadJpaController(), pages of list() may lag behind
+     * recent writes by the replication delay.
+     */
+    protected EntityManagerFactory getReadEntityManagerFactory() {
+        return null;
+    }
+
+    /*
+     * How long reads of an id stay on the primary after it was written, cover the usual replication delay.
+     */
+    protected Duration getReadAfterWriteWindow() {
+        return Duration.ofSeconds(5);
+    }
+
+    /*
+     * return ReplicaRouting tracking the ids written recently and failures of the read replica, used when a read
+     * replica is configured.
+     *
+     *  Defaults to one instance per controller class, created with getReadAfterWriteWindow(), so controllers created
+     *  per request share it. Override to share one instance between controllers writing the same tables.
+     */
+    protected ReplicaRouting getReplicaRouting() {
+        AtomicReference<ReplicaRouting> shared = REPLICA_ROUTING.get(getClass());
+        ReplicaRouting routing = shared.get();
+        if (routing == null) {
+            shared.compareAndSet(null, new ReplicaRouting(RECENT_WRITES_SIZE, getReadAfterWriteWindow()));
+            routing = shared.get();
+        }
+        return routing;
+    }
+
+    /*
+     * Override to report replication lag beyond getReadAfterWriteWindow(), all reads go to the primary while true.
+     *  Called on every routed read, cache the answer (for example from a periodic heartbeat row check).
+     */
+    protected boolean isReplicaLagging() {
+        return false;
+    }
+
+    /*
+     * return ChangeFeed that committed post, put, patch and delete changes (single and bulk) are published to, or
+     * null to not publish changes. Share the instance between controller instances of the type.
+     */
+    @Override
+    public ChangeFeed<T> getChangeFeed() {
+        return null;
+    }
+
+    /*
+     * return cache of converted DO objects used by get(), or null to disable caching.
+     *
+     *  Entries are invalidated by put and delete of this controller. Writes done outside of this controller
+     *  are only picked up once the entry expires, size the expiry accordingly.
+     */
+    protected DoCache<T> getDoCache() {
+        return null;
+    }
+
+    /*
+     * return cache of ids known not to exist, or null to always ask the database.
+     *
+     *  Repeated lookups of a missing id (scanners, clients retrying) are answered from the cache until the entry
+     *  expires. Ids created through this controller are removed from it right away.
+     */
+    protected NegativeLookupCache getNegativeLookupCache() {
+        return null;
+    }
+
+    /*
+     * return WriteBatcher to group concurrent post() and put() calls into batched transactions, or null to write
+     * each one in its own transaction. Only used together with getEntityManagerFactory().
+     */
+    protected WriteBatcher<T> getWriteBatcher() {
+        return null;
+    }
+
+    /*
+     * return SingleFlight that concurrent get() and getVersioned() calls for the same id and fetch plan share a single
+     * load and conversion through, or null to load every call on its own. Share the instance between controller
+     * instances of the type, like the DoCache.
+     *
+     *  All callers of a coalesced load receive the same DO object (or failure), so a hot key costs one database read
+     *  however many clients ask for it at once. The shared DO object must be treated as read only.
+     *  Coalesced getVersioned() calls convert as part of the load, before conditional requests are evaluated.
+     *  Reads through a DoCache are always coalesced.
+     */
+    protected SingleFlight<DoCache.Entry<T>> getSingleFlight() {
+        return null;
+    }
+
+    /*
+     * When true, the NonExisting / PreExisting / Stale entity exceptions thrown by this controller carry no stack
+     * trace. They are expected outcomes mapped to 404 / 409, the stack trace is rarely looked at and costly to fill.
+     */
+    protected boolean isStacklessExceptionsEnabled() {
+        return false;
+    }
+
+    /*
+     * return registry to record per operation and per stage metrics of this controller in, or null to disable metrics.
+     */
+    protected MetricsRegistry getMetricsRegistry() {
+        return null;
+    }
+
+    /*
+     * Name the metrics of this controller are recorded under, defaults to the entity class name.
+     */
+    protected String getMetricsName() {
+        try {
+            return getEntityClass().getSimpleName();
+        } catch (IllegalStateException e) {
+            return getClass().getSimpleName();
+        }
+    }
+
+    /*
+     * Number of items written per transaction by bulk operations.
+     */
+    protected int getBatchSize() {
+        return DEFAULT_BATCH_SIZE;
+    }
+
     /*
      * Finds unique field violations in db for given DO object.
      * 
      *  Find entity based on unique properties. Given entity must be excluded from matching.
      *  For example:  use jpaController to call findBy() using meta model fields like Persona_.username and value to search
+     *  Only used when getUniqueConstraints() returns null. Defaults to no violations.
+     */
+    protected Map<String, Object> findUniqueFieldViolations(T object, E entity) {
+        return Collections.emptyMap();
+    }
+
+    /*
+     * return declarative unique constraints of the entity, or null to use findUniqueFieldViolations() instead.
+     * Share the instance between controller instances of the type, like the DoCache, its negative filter is loaded
+     * from the whole table once per instance.
+     *
+     *  All constraints are checked with a single query through getEntityManagerFactory().
+     *  For example:
+     *      private static final UniqueConstraints<Persona> UNIQUE_CONSTRAINTS = new UniqueConstraints<Persona>()
+     *          .unique(Persona_.username).unique(Persona_.firstName, Persona_.lastName);
+     *
+     *      protected UniqueConstraints<Persona> getUniqueConstraints() {
+     *          return UNIQUE_CONSTRAINTS;
+     *      }
+     */
+    protected UniqueConstraints<E> getUniqueConstraints() {
+        return null;
+    }
+
+    /*
+     * Number of items returned by list() when the caller does not ask for a page size.
+     */
+    protected int getDefaultPageSize() {
+        return DEFAULT_PAGE_SIZE;
+    }
+
+    /*
+     * Upper bound of the page size of list(), keeps the memory used by a single page bounded.
+     */
+    protected int getMaxPageSize() {
+        return MAX_PAGE_SIZE;
+    }
+
+    /*
+     * return Validator the DO object is validated with after a patch was merged into it, or null to not validate.
+     *  Defaults to the Bean Validation provider found on the class path, put and post are validated by the resource.
      */
-    protected abstract Map<String, Object> findUniqueFieldViolations(T object, E entity);
+    protected Validator getValidator() {
+        Validator validator = defaultValidator;
+        if (validator == null && !validatorUnavailable) {
+            try {
+                validator = Validation.buildDefaultValidatorFactory().getValidator();
+                defaultValidator = validator;
+            } catch (ValidationException e) {
+                log.warn("No Bean Validation provider available, patched objects are not validated: {}", e.getMessage());
+                validatorUnavailable = true;
+            }
+        }
+        return validator;
+    }
+
+    /*
+     * Finds unique field violations in db for a whole batch of DO objects, keyed by the index of the object in the list.
+     *
+     *  entities holds the existing entity for each object on update and is null on create.
+     *  Default implementation checks every object on its own, override to check the batch with set based queries (IN clauses).
+     */
+    protected Map<Integer, Map<String, Object>> findUniqueFieldViolations(List<T> objects, List<E> entities) {
+        Map<Integer, Map<String, Object>> violations = new HashMap<>();
+        for (int i = 0; i < objects.size(); i++) {
+            Map<String, Object> duplicates = findUniqueFieldViolations(objects.get(i), entities == null ? null : entities.get(i));
+            if (duplicates != null && !duplicates.isEmpty()) {
+                violations.put(i, duplicates);
+            }
+        }
+        return violations;
+    }
+
+    /*
+     * Returns a cheap validator of the given entity, used as ETag for conditional requests.
+     *  Defaults to the value of the JPA @Version attribute, null when the entity is not versioned.
+     *  Override to provide a different validator, for example a hash of the row.
+     */
+    protected Object getVersion(E entity) {
+        return TypeMetadata.of(entity.getClass()).getVersion(entity);
+    }
+
+    /*
+     * Returns the last modification time of the given entity, used as Last-Modified for conditional requests.
+     *  Defaults to null, override when the entity tracks its modification time.
+     */
+    protected Date getLastModified(E entity) {
+        return null;
+    }
+
+    /*
+     * Returns the primary key held by the given DO object.
+     *  Default implementation reads the DO property named like the entity @Id when both have the same type, and
+     *  otherwise converts the DO to an entity to read the key. Override to read it from the DO directly.
+     */
+    protected Object getPrimaryKey(T object) {
+        TypeMetadata doMetadata = TypeMetadata.of(object.getClass());
+        Method getter = doMetadata.getIdGetter(getEntityMetadata());
+        if (getter != null) {
+            return doMetadata.read(getter, object);
+        }
+        return getJpaController().getPrimaryKey(convertToEntity(object));
+    }
+
+    /*
+     * Blind update mode for versioned entities.
+     *
+     *  When enabled, put() does not load the row first: it issues a single UPDATE of all basic and many to one
+     *  attributes WHERE id = ? AND version = ?, with the version read from the DO property named like the entity
+     *  @Version (or, when the DO has none, from the converted entity, so the converter must copy it).
+     *  A stale version fails with StaleEntityException (409). The update bypasses entity lifecycle callbacks and
+     *  overwrites every column with the converted values. Entities without @Version, or DO objects without a
+     *  version (null, or 0 as versions are numbered from 1), use the regular load and merge path.
+     */
+    protected boolean isBlindUpdateEnabled() {
+        return false;
+    }
 
     /*
      * Convert given Entity object to DO object.
@@ -55,6 +401,30 @@ public abstract class AbstractWsController<T, E> implements WsController<T> {
      */
     protected abstract T convertToDO(E object, boolean convertRelationships);
 
+    /*
+     * Convert given Entity object to DO object, populating only what the fetch plan asks for.
+     *  Default implementation converts through getDoConverter() when it is a GeneratedConverter, and otherwise
+     *  converts everything, with relationships when the plan expands any.
+     *  Entities are only loaded with the plan's fetch graph when this is overridden or a GeneratedConverter is
+     *  provided, a converter unaware of the plan would lazy load what the graph left out.
+     */
+    @SuppressWarnings("unchecked")
+    protected T convertToDO(E object, FetchPlan plan) {
+        DoConverter<T, E> converter = getDoConverter();
+        if (converter instanceof GeneratedConverter) {
+            return ((GeneratedConverter<T, E>) converter).convert(object, plan);
+        }
+        return convertToDO(object, plan.hasExpansions());
+    }
+
+    /*
+     * return converter between DO and Entity objects of this controller, or null. Only used by the default
+     *  convertToDO(E, FetchPlan), to convert just what a fetch plan asks for when it is a GeneratedConverter.
+     */
+    protected DoConverter<T, E> getDoConverter() {
+        return null;
+    }
+
     /*
      * Convert given DO object to Entity object.
      */
@@ -67,99 +437,1458 @@ public abstract class AbstractWsController<T, E> implements WsController<T> {
     protected abstract E convertToEntity(T object, E entity);
     
     private String getSimpleClassName(Object object) {
-        String className = object.getClass().getSimpleName();
-        return className.replaceAll("(?i)DO$", "");
+        return TypeMetadata.of(object.getClass()).getDisplayName();
     }
 
     @Override
     public Object post(T object) throws Exception {
-        String className = this.getSimpleClassName(object);
-        log.info("Creating a new entry for {}", className);
-        log.trace("Creating with input -> '{}'", object);
-    	validateUniqueFields(object, null, "The following values are not available and must be changed. ");
-        E entity = convertToEntity(object);
-        getJpaController().create(entity);
-        Object id = getJpaController().getPrimaryKey(entity);
-        log.info("Successfully created {} id: '{}'", className, id);
-        log.trace("Created {} -> '{}'", className, entity);
-        return id;
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.POST);
+        try {
+            String className = this.getSimpleClassName(object);
+            log.info("Creating a new entry for {}", className);
+            log.trace("Creating with input -> '{}'", object);
+            WriteBatcher<T> batcher = getActiveWriteBatcher();
+            if (batcher != null) {
+                Object id = batcher.post(object);
+                log.info("Successfully created {} id: '{}'", className, id);
+                return id;
+            }
+            long stage = System.nanoTime();
+            E entity = convertToEntity(object);
+            metrics().record(Stage.CONVERT, System.nanoTime() - stage);
+        	validateUniqueFields(object, entity, null, UNIQUE_FIELDS_ERROR);
+            stage = System.nanoTime();
+            getJpaController().create(entity);
+            metrics().record(Stage.PERSIST, System.nanoTime() - stage);
+            recordUniqueValues(entity);
+            Object id = getJpaController().getPrimaryKey(entity);
+            invalidateCache(id);
+            publishChange(ChangeEvent.Type.CREATED, id, () -> convertToDO(entity, false));
+            log.info("Successfully created {} id: '{}'", className, id);
+            log.trace("Created {} -> '{}'", className, entity);
+            return id;
+        } catch (Exception e) {
+            metrics.failed(Operation.POST, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.POST, System.nanoTime() - start);
+        }
     }
 
     @Override
     public T get(Object id) throws Exception {
-        E entity = validateExisting(id, NON_EXISTING_ENTITY_ERROR + id);
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.GET);
+        try {
+            DoCache<T> cache = getDoCache();
+            SingleFlight<DoCache.Entry<T>> singleFlight = cache == null ? getSingleFlight() : null;
+            T object;
+            if (cache != null) {
+                object = cache.get(getJpaController().convertToPrimaryKeyType(id), this::loadEntry).getObject();
+            } else if (singleFlight != null) {
+                object = singleFlight.execute(getJpaController().convertToPrimaryKeyType(id), () -> loadEntry(id)).getObject();
+            } else {
+                object = load(id);
+            }
+            log.info("Getting {} object with id '{}'", this.getSimpleClassName(object), id);
+            log.trace("Found {} -> {}", this.getSimpleClassName(object), object);
+            return object;
+        } catch (Exception e) {
+            metrics.failed(Operation.GET, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.GET, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public T get(Object id, FetchPlan plan) throws Exception {
+        if (plan.isAll()) {
+            return get(id);
+        }
+        return getVersioned(id, plan).get();
+    }
+
+    @Override
+    public Versioned<T> getVersioned(Object id) throws Exception {
+        return getVersioned(id, FetchPlan.ALL);
+    }
+
+    /*
+     * Loads the entity with only the attributes and relationships of the fetch plan, through a JPA fetch graph.
+     *  The DO cache is only used for the default plan, a cache hit answers without reading the database.
+     */
+    @Override
+    public Versioned<T> getVersioned(Object id, FetchPlan plan) throws Exception {
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.GET);
+        try {
+            DoCache<T> cache = plan.isAll() ? getDoCache() : null;
+            if (cache != null) {
+                DoCache.Entry<T> entry = cache.get(getJpaController().convertToPrimaryKeyType(id), this::loadEntry);
+                log.debug("Found version '{}' for entity with id: '{}'", entry.getVersion(), id);
+                return new Versioned<>(entry.getVersion(), entry.getLastModified(), entry::getObject);
+            }
+            SingleFlight<DoCache.Entry<T>> singleFlight = getSingleFlight();
+            if (singleFlight != null) {
+                Object key = getJpaController().convertToPrimaryKeyType(id);
+                DoCache.Entry<T> entry = singleFlight.execute(plan.isAll() ? key : Arrays.asList(key, plan), () -> loadEntry(id, plan));
+                log.debug("Found version '{}' for entity with id: '{}'", entry.getVersion(), id);
+                return new Versioned<>(entry.getVersion(), entry.getLastModified(), entry::getObject);
+            }
+
+            E entity = plan.isAll() || getEntityManagerFactory() == null || !isFetchPlanSupported() ? validateExistingForRead(id) : findWithFetchPlan(id, plan);
+            Object version = getVersion(entity);
+            log.debug("Found version '{}' for entity with id: '{}'", version, id);
+            return new Versioned<>(version == null ? null : version.toString(), getLastModified(entity), () -> {
+                long stage = System.nanoTime();
+                T object = plan.isAll() ? convertToDO(entity, true) : convertToDO(entity, plan);
+                metrics().record(Stage.CONVERT, System.nanoTime() - stage);
+                log.info("Getting {} object with id '{}'", this.getSimpleClassName(object), id);
+                return object;
+            });
+        } catch (Exception e) {
+            metrics.failed(Operation.GET, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.GET, System.nanoTime() - start);
+        }
+    }
+
+    /*
+     * Whether the conversion honors fetch plans, see convertToDO(E, FetchPlan).
+     */
+    private boolean isFetchPlanSupported() {
+        Boolean supported = fetchPlanSupported;
+        if (supported == null) {
+            supported = getDoConverter() instanceof GeneratedConverter;
+            for (Class<?> type = getClass(); !supported && type != AbstractWsController.class; type = type.getSuperclass()) {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (method.getName().equals("convertToDO") && method.getParameterCount() == 2 && method.getParameterTypes()[1] == FetchPlan.class) {
+                        supported = true;
+                    }
+                }
+            }
+            fetchPlanSupported = supported;
+            log.debug("Fetch plans of {} are {}", getClass().getSimpleName(), supported ? "loaded with fetch graphs" : "converted from fully loaded entities");
+        }
+        return supported;
+    }
+
+    private E findWithFetchPlan(Object id, FetchPlan plan) throws NonExistingEntityException {
+        E entity = isKnownMissing(id) ? null : readFrom(id, getReadEntityManagerFactory(), getEntityManagerFactory(), emf -> findWithFetchPlan(emf, id, plan));
+        if (entity == null) {
+            recordMissing(id);
+            throw notFound(NON_EXISTING_ENTITY_ERROR + id);
+        }
+        return entity;
+    }
+
+    private E findWithFetchPlan(EntityManagerFactory emf, Object id, FetchPlan plan) {
+        log.debug("Finding entity with id: '{}' using {}", id, plan);
+        EntityManager em = emf.createEntityManager();
+        try {
+            EntityType<E> entityType = em.getMetamodel().entity(getEntityClass());
+            EntityGraph<E> graph = em.createEntityGraph(getEntityClass());
+            for (SingularAttribute<? super E, ?> attribute : entityType.getSingularAttributes()) {
+                boolean basic = attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC;
+                if (attribute.isId() || attribute.isVersion() || (basic && plan.getFields() == null)) {
+                    graph.addAttributeNodes(attribute.getName());
+                }
+            }
+            if (plan.getFields() != null) {
+                for (String field : plan.getFields()) {
+                    getPlanAttribute(entityType, field, false);
+                    graph.addAttributeNodes(field);
+                }
+            }
+            for (String relationship : plan.getExpand()) {
+                String[] path = relationship.split("\\.");
+                getPlanAttribute(entityType, path[0], true);
+                if (path.length == 1) {
+                    graph.addAttributeNodes(path[0]);
+                } else {
+                    Subgraph<Object> subgraph = graph.addSubgraph(path[0]);
+                    for (int i = 1; i < path.length - 1; i++) {
+                        subgraph = subgraph.addSubgraph(path[i]);
+                    }
+                    subgraph.addAttributeNodes(path[path.length - 1]);
+                }
+            }
+
+            Object key = getJpaController().convertToPrimaryKeyType(id);
+            return em.find(getEntityClass(), key, Collections.singletonMap("javax.persistence.fetchgraph", graph));
+        } finally {
+            em.close();
+        }
+    }
+
+    private Attribute<? super E, ?> getPlanAttribute(EntityType<E> entityType, String name, boolean association) {
+        for (Attribute<? super E, ?> attribute : entityType.getAttributes()) {
+            if (attribute.getName().equals(name) && (!association || attribute.isAssociation() || attribute.isCollection())) {
+                return attribute;
+            }
+        }
+        throw new InputValidationException((association ? "Unknown relationship to expand: " : "Unknown field: ") + name);
+    }
+
+    /*
+     * Lists entities ordered by primary key, one page at a time.
+     *
+     *  Uses keyset pagination: the cursor holds the last primary key of the previous page and the next page
+     *  is fetched with 'id > cursor', so every page costs the same no matter how deep the client pages.
+     *  filters are matched for equality against basic attributes of the entity metamodel.
+     *  Items are converted without relationships while the page is being iterated.
+     */
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public Page<T> list(String cursor, int limit, Map<String, String> filters) throws Exception {
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.LIST);
+        try {
+            EntityManagerFactory emf = getEntityManagerFactory();
+            if (emf == null) {
+                throw new IllegalStateException("Listing requires getEntityManagerFactory() to be provided by " + getClass().getSimpleName());
+            }
+            int pageSize = Math.min(limit > 0 ? limit : getDefaultPageSize(), getMaxPageSize());
+            log.info("Listing page of {} entries after cursor '{}'", pageSize, cursor);
+            log.trace("Listing with filters -> '{}'", filters);
+
+            List<E> entities = readFrom(null, getReadEntityManagerFactory(), emf, source -> findPage(source, cursor, pageSize, filters));
+            String nextCursor = null;
+            if (entities.size() > pageSize) {
+                entities = entities.subList(0, pageSize);
+                nextCursor = encodeCursor(getJpaController().getPrimaryKey(entities.get(pageSize - 1)));
+            }
+
+            List<E> pageEntities = entities;
+            Iterable<T> items = () -> new Iterator<T>() {
+                private final Iterator<E> iterator = pageEntities.iterator();
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return convertToDO(iterator.next(), false);
+                }
+            };
+            return new Page<>(items, nextCursor);
+        } catch (Exception e) {
+            metrics.failed(Operation.LIST, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.LIST, System.nanoTime() - start);
+        }
+    }
+
+    /*
+     * Entities of the page after the cursor, one more than pageSize when there is a next page.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<E> findPage(EntityManagerFactory emf, String cursor, int pageSize, Map<String, String> filters) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            EntityType<E> entityType = em.getMetamodel().entity(getEntityClass());
+            SingularAttribute<? super E, ?> idAttribute = entityType.getId(entityType.getIdType().getJavaType());
+            CriteriaQuery<E> query = cb.createQuery(getEntityClass());
+            Root<E> root = query.from(getEntityClass());
+            Path<Comparable> idPath = (Path<Comparable>) (Path) root.get(idAttribute);
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (cursor != null && !cursor.isEmpty()) {
+                predicates.add(cb.greaterThan(idPath, (Comparable) decodeCursor(cursor)));
+            }
+            if (filters != null) {
+                filters.forEach((name, value) -> {
+                    SingularAttribute<? super E, ?> attribute = getFilterAttribute(entityType, name);
+                    predicates.add(cb.equal(root.get(attribute), AttributeValues.convert(name, attribute.getJavaType(), value)));
+                });
+            }
+            query.select(root).where(predicates.toArray(new Predicate[0])).orderBy(cb.asc(idPath));
+
+            return em.createQuery(query)
+                    .setHint("eclipselink.read-only", "true")
+                    .setMaxResults(pageSize + 1)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private SingularAttribute<? super E, ?> getFilterAttribute(EntityType<E> entityType, String name) {
+        return getBasicAttribute(entityType, name, "Unknown filter field: ");
+    }
+
+    private SingularAttribute<? super E, ?> getBasicAttribute(EntityType<E> entityType, String name, String error) {
+        for (SingularAttribute<? super E, ?> attribute : entityType.getSingularAttributes()) {
+            if (attribute.getName().equals(name) && attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC) {
+                return attribute;
+            }
+        }
+        throw new InputValidationException(error + name);
+    }
+
+    private String encodeCursor(Object id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object decodeCursor(String cursor) {
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return getJpaController().convertToPrimaryKeyType(id);
+        } catch (IllegalArgumentException e) {
+            throw new InputValidationException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /*
+     * Updates the row by id and version without loading it, returns false when blind update does not apply.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private boolean blindUpdate(Object id, T object) throws Exception {
+        EntityManagerFactory emf = getEntityManagerFactory();
+        if (emf == null) {
+            return false;
+        }
+        TypeMetadata doMetadata = TypeMetadata.of(object.getClass());
+        Method versionGetter = doMetadata.getGetter(getEntityMetadata().getVersionName());
+        E entity = null;
+        Object version;
+        if (versionGetter != null) {
+            version = doMetadata.read(versionGetter, object);
+        } else {
+            entity = convertToEntity(object);
+            version = TypeMetadata.of(entity.getClass()).getVersion(entity);
+        }
+        if (version == null || (version instanceof Number && ((Number) version).longValue() == 0)) {
+            log.debug("No version provided for id: '{}', using regular update", id);
+            return false;
+        }
+        if (entity == null) {
+            entity = convertToEntity(object);
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            EntityType<E> entityType = em.getMetamodel().entity(getEntityClass());
+            SingularAttribute<? super E, ?> versionAttribute = null;
+            for (SingularAttribute<? super E, ?> attribute : entityType.getSingularAttributes()) {
+                if (attribute.isVersion()) {
+                    versionAttribute = attribute;
+                }
+            }
+            if (versionAttribute == null) {
+                return false;
+            }
+            validateUniqueFields(object, entity, entity, UNIQUE_FIELDS_ERROR);
+
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaUpdate<E> update = cb.createCriteriaUpdate(getEntityClass());
+            Root<E> root = update.from(getEntityClass());
+            for (SingularAttribute<? super E, ?> attribute : entityType.getSingularAttributes()) {
+                Attribute.PersistentAttributeType type = attribute.getPersistentAttributeType();
+                if (attribute.isId() || attribute.isVersion()
+                        || (type != Attribute.PersistentAttributeType.BASIC && type != Attribute.PersistentAttributeType.MANY_TO_ONE)) {
+                    continue;
+                }
+                update.set((SingularAttribute) attribute, AttributeAccessor.of(attribute).get(entity));
+            }
+
+            Path versionPath = root.get(versionAttribute);
+            Class<?> versionType = versionAttribute.getJavaType();
+            if (Number.class.isAssignableFrom(versionType) || versionType.isPrimitive()) {
+                update.set(versionPath, cb.sum((Expression<Number>) versionPath, (Number) AttributeValues.convert(versionAttribute.getName(), versionType, 1)));
+            } else if (Timestamp.class.isAssignableFrom(versionType)) {
+                update.set(versionPath, cb.literal(new Timestamp(System.currentTimeMillis())));
+            } else {
+                return false;
+            }
+
+            SingularAttribute<? super E, ?> idAttribute = entityType.getId(entityType.getIdType().getJavaType());
+            Object key = getJpaController().convertToPrimaryKeyType(id);
+            update.where(cb.equal(root.get(idAttribute), key), cb.equal(versionPath, AttributeValues.convert(versionAttribute.getName(), versionType, version)));
+
+            EntityTransaction tx = em.getTransaction();
+            int updated;
+            try {
+                long stage = System.nanoTime();
+                tx.begin();
+                updated = em.createQuery(update).executeUpdate();
+                tx.commit();
+                metrics().record(Stage.PERSIST, System.nanoTime() - stage);
+            } finally {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+            }
+
+            if (updated == 0) {
+                validateExisting(id);
+                throw isStacklessExceptionsEnabled() ? StaleEntityException.stackless(STALE_ENTITY_ERROR + id) : new StaleEntityException(STALE_ENTITY_ERROR + id);
+            }
+            recordUniqueValues(entity);
+            log.trace("Blind updated {} with version '{}'", entity, version);
+            return true;
+        } finally {
+            em.close();
+        }
+    }
+
+    /*
+     * Work of a conditional write on the entity locked for update, inside the transaction.
+     */
+    @FunctionalInterface
+    private interface ConditionalWork<E> {
+        void execute(EntityManager em, E entity) throws Exception;
+    }
+
+    /*
+     * Loads the entity locked for update, checks the condition against it and runs the work in the same transaction.
+     *  Returns the entity as written.
+     */
+    private E executeIfMatches(Object id, WriteCondition condition, ConditionalWork<E> work) throws Exception {
+        EntityManager em = getEntityManagerFactory().createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            long stage = System.nanoTime();
+            E entity = isKnownMissing(id) ? null : em.find(getEntityClass(), getJpaController().convertToPrimaryKeyType(id), LockModeType.PESSIMISTIC_WRITE);
+            metrics().record(Stage.VALIDATE_EXISTING, System.nanoTime() - stage);
+            if (entity == null) {
+                recordMissing(id);
+                throw notFound(NON_EXISTING_ENTITY_ERROR + id);
+            }
+            checkCondition(id, condition, entity);
+            work.execute(em, entity);
+            stage = System.nanoTime();
+            tx.commit();
+            metrics().record(Stage.PERSIST, System.nanoTime() - stage);
+            return entity;
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+    }
+
+    private void checkCondition(Object id, WriteCondition condition, E entity) throws PreconditionFailedException {
+        Object version = getVersion(entity);
+        if (!condition.test(version == null ? null : version.toString(), getLastModified(entity))) {
+            log.debug("Entity with id: '{}' at version '{}' does not match {}", id, version, condition);
+            throw isStacklessExceptionsEnabled() ? PreconditionFailedException.stackless(PRECONDITION_FAILED_ERROR + id)
+                    : new PreconditionFailedException(PRECONDITION_FAILED_ERROR + id);
+        }
+    }
+
+    private T load(Object id) throws NonExistingEntityException {
+        E entity = validateExistingForRead(id);
+        long stage = System.nanoTime();
         T object = convertToDO(entity, true);
-        log.info("Getting {} object with id '{}'", this.getSimpleClassName(object), id);
-        log.trace("Found {} -> {}", this.getSimpleClassName(object), object);
+        metrics().record(Stage.CONVERT, System.nanoTime() - stage);
         return object;
     }
 
+    private DoCache.Entry<T> loadEntry(Object id) throws NonExistingEntityException {
+        return loadEntry(id, FetchPlan.ALL);
+    }
+
+    private DoCache.Entry<T> loadEntry(Object id, FetchPlan plan) throws NonExistingEntityException {
+        E entity = plan.isAll() || getEntityManagerFactory() == null || !isFetchPlanSupported() ? validateExistingForRead(id) : findWithFetchPlan(id, plan);
+        long stage = System.nanoTime();
+        T object = plan.isAll() ? convertToDO(entity, true) : convertToDO(entity, plan);
+        metrics().record(Stage.CONVERT, System.nanoTime() - stage);
+        Object version = getVersion(entity);
+        return new DoCache.Entry<>(object, version == null ? null : version.toString(), getLastModified(entity));
+    }
+
+    private void invalidateCache(Object id) {
+        if (id == null) {
+            return;
+        }
+        // Recorded first, a read between invalidation and recording would cache the stale replica row again
+        if (hasReadReplica()) {
+            getReplicaRouting().recordWrite(getJpaController().convertToPrimaryKeyType(id));
+        }
+        DoCache<T> cache = getDoCache();
+        if (cache != null) {
+            cache.invalidate(getJpaController().convertToPrimaryKeyType(id));
+        }
+        NegativeLookupCache misses = getNegativeLookupCache();
+        if (misses != null) {
+            misses.invalidate(getJpaController().convertToPrimaryKeyType(id));
+        }
+    }
+
+    /*
+     * Publishes a committed change, the object is only converted when the feed includes objects.
+     *  The write is already committed, so a failing conversion publishes the change without its object.
+     */
+    private void publishChange(ChangeEvent.Type type, Object id, Supplier<T> object) {
+        ChangeFeed<T> feed = getChangeFeed();
+        if (feed == null || id == null) {
+            return;
+        }
+        T published = null;
+        if (feed.isIncludingObjects()) {
+            try {
+                published = object.get();
+            } catch (RuntimeException e) {
+                log.warn("Publishing {} change of id: '{}' without object, conversion failed: {}", type, id, e.getMessage());
+            }
+        }
+        feed.publish(type, getJpaController().convertToPrimaryKeyType(id), published);
+    }
+
+    /*
+     * DO object of the committed entity read back from the primary, for writes that do not hold the managed entity.
+     */
+    private T reloadObject(Object id) {
+        E entity = getJpaController().findByPrimaryKey(id);
+        return entity == null ? null : convertToDO(entity, false);
+    }
+
+    private boolean hasReadReplica() {
+        return getReadJpaController() != null || getReadEntityManagerFactory() != null;
+    }
+
+    /*
+     * Runs a read against the replica when it may serve it, otherwise or when the replica fails or finds nothing
+     * against the primary.
+     *  - id: id being read, null for reads of many entities
+     *  A replica failure is a PersistenceException from the EntityManager or an EclipseLink DatabaseException the
+     *  session of a JpaController throws unwrapped.
+     */
+    private <S, R> R readFrom(Object id, S replica, S primary, Function<S, R> read) {
+        if (replica != null && isReplicaReadable(id)) {
+            try {
+                R result = read.apply(replica);
+                if (result != null) {
+                    return result;
+                }
+                log.debug("Entity with id: '{}' not found on read replica, reading from primary", id);
+            } catch (PersistenceException | DatabaseException e) {
+                log.warn("Read replica of {} failed, reading from primary for {} ms: {}", getClass().getSimpleName(),
+                        REPLICA_RETRY_DELAY.toMillis(), e.getMessage());
+                getReplicaRouting().replicaFailed(REPLICA_RETRY_DELAY);
+            }
+        }
+        return read.apply(primary);
+    }
+
+    private boolean isReplicaReadable(Object id) {
+        ReplicaRouting routing = getReplicaRouting();
+        if (!routing.isReplicaAvailable() || isReplicaLagging()) {
+            return false;
+        }
+        return id == null || !routing.isRecentlyWritten(getJpaController().convertToPrimaryKeyType(id));
+    }
+
+    private WriteBatcher<T> getActiveWriteBatcher() {
+        return getEntityManagerFactory() == null ? null : getWriteBatcher();
+    }
+
+    private boolean isKnownMissing(Object id) {
+        NegativeLookupCache misses = getNegativeLookupCache();
+        if (misses != null && misses.isMissing(getJpaController().convertToPrimaryKeyType(id))) {
+            log.debug("Entity with id: '{}' is known not to exist", id);
+            return true;
+        }
+        return false;
+    }
+
+    private void recordMissing(Object id) {
+        NegativeLookupCache misses = getNegativeLookupCache();
+        if (misses != null) {
+            misses.recordMissing(getJpaController().convertToPrimaryKeyType(id));
+        }
+    }
+
+    private NonExistingEntityException notFound(String error) {
+        return isStacklessExceptionsEnabled() ? NonExistingEntityException.stackless(error) : new NonExistingEntityException(error);
+    }
+
     @Override
     public void put(Object id, T object) throws Exception {
-        String className = this.getSimpleClassName(object);
-        log.info("Updating {} id: '{}'", className, id);
-        log.trace("Updating with input -> '{}'", object);
-        validateIdMatch(id, object, "Missing id field in provided json object or it does not match your URI '" + id + "'");
-        E entity = validateExisting(id, NON_EXISTING_ENTITY_ERROR + id);
-    	validateUniqueFields(object, entity, "The following values are not available and must be changed. ");
-        entity = convertToEntity(object, entity);
-        getJpaController().update(entity);
-        log.info("Successfully updated {} id: '{}'", className, id);
-        log.trace("Updated message -> '{}'", entity);
+        put(id, object, null);
+    }
+
+    /*
+     * put() that only writes when the current entity matches the condition, PreconditionFailedException otherwise.
+     *  With getEntityManagerFactory() the condition is checked on the row locked for update, in the transaction
+     *  of the write, so two clients holding the same version can not both write. Conditional writes are not batched
+     *  and not blind. Without an EntityManagerFactory the condition is checked on the entity loaded for the update.
+     */
+    @Override
+    public void put(Object id, T object, WriteCondition condition) throws Exception {
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.PUT);
+        try {
+            String className = this.getSimpleClassName(object);
+            log.info("Updating {} id: '{}'", className, id);
+            log.trace("Updating with input -> '{}'", object);
+            validateIdMatch(id, object);
+            if (condition != null && getEntityManagerFactory() != null) {
+                E entity = executeIfMatches(id, condition, (em, existing) -> {
+                    long stage = System.nanoTime();
+                    convertToEntity(object, existing);
+                    metrics().record(Stage.CONVERT, System.nanoTime() - stage);
+                    validateUniqueFields(object, existing, existing, UNIQUE_FIELDS_ERROR);
+                });
+                recordUniqueValues(entity);
+                invalidateCache(id);
+                publishChange(ChangeEvent.Type.UPDATED, id, () -> convertToDO(entity, false));
+                log.info("Successfully updated {} id: '{}'", className, id);
+                return;
+            }
+            WriteBatcher<T> batcher = condition == null ? getActiveWriteBatcher() : null;
+            if (batcher != null) {
+                batcher.put(id, object);
+                log.info("Successfully updated {} id: '{}'", className, id);
+                return;
+            }
+            if (condition == null && isBlindUpdateEnabled() && blindUpdate(id, object)) {
+                invalidateCache(id);
+                publishChange(ChangeEvent.Type.UPDATED, id, () -> reloadObject(id));
+                log.info("Successfully updated {} id: '{}'", className, id);
+                return;
+            }
+            E entity = validateExisting(id);
+            if (condition != null) {
+                checkCondition(id, condition, entity);
+            }
+            long stage = System.nanoTime();
+            entity = convertToEntity(object, entity);
+            metrics().record(Stage.CONVERT, System.nanoTime() - stage);
+        	validateUniqueFields(object, entity, entity, UNIQUE_FIELDS_ERROR);
+            stage = System.nanoTime();
+            getJpaController().update(entity);
+            metrics().record(Stage.PERSIST, System.nanoTime() - stage);
+            recordUniqueValues(entity);
+            invalidateCache(id);
+            publishChange(ChangeEvent.Type.UPDATED, id, () -> reloadObject(id));
+            log.info("Successfully updated {} id: '{}'", className, id);
+            log.trace("Updated message -> '{}'", entity);
+        } catch (Exception e) {
+            metrics.failed(Operation.PUT, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.PUT, System.nanoTime() - start);
+        }
+    }
+
+    /*
+     * Applies a JSON merge patch (RFC 7386) to the DO object of the entity with the given id.
+     *  - keys are DO property names, only properties with a setter and a scalar type (see AttributeValues) can be
+     *    patched and null clears the property
+     *  - the id can not be changed, a version value must match the current version (StaleEntityException otherwise)
+     *  - the patched DO object is validated with getValidator() and converted into the managed entity, the DO decides
+     *    what reaches the entity the same way as for put()
+     *  - the DO object is converted with its relationships, so the conversion back writes the same related entities
+     *    instead of clearing the relationships the DO object would leave out
+     *  - unique fields are only validated for the constraints using a changed attribute
+     *  The entity is loaded and written in a single transaction, so the provider only updates the changed columns.
+     *  Requires getEntityManagerFactory().
+     */
+    @Override
+    public void patch(Object id, Map<String, Object> patch) throws Exception {
+        patch(id, patch, null);
+    }
+
+    /*
+     * patch() that only writes when the current entity matches the condition, checked on the row locked for update.
+     */
+    @Override
+    public void patch(Object id, Map<String, Object> patch, WriteCondition condition) throws Exception {
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.PATCH);
+        try {
+            EntityManagerFactory emf = getEntityManagerFactory();
+            if (emf == null) {
+                throw new IllegalStateException("Patch requires getEntityManagerFactory() to be provided by " + getClass().getSimpleName());
+            }
+            log.info("Patching {} id: '{}' fields: {}", getEntityMetadata().getDisplayName(), id, patch.keySet());
+            EntityManager em = emf.createEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                long stage = System.nanoTime();
+                Object key = getJpaController().convertToPrimaryKeyType(id);
+                E entity = isKnownMissing(id) ? null
+                        : condition == null ? em.find(getEntityClass(), key) : em.find(getEntityClass(), key, LockModeType.PESSIMISTIC_WRITE);
+                metrics().record(Stage.VALIDATE_EXISTING, System.nanoTime() - stage);
+                if (entity == null) {
+                    recordMissing(id);
+                    throw notFound(NON_EXISTING_ENTITY_ERROR + id);
+                }
+                if (condition != null) {
+                    checkCondition(id, condition, entity);
+                }
+
+                stage = System.nanoTime();
+                T object = convertToDO(entity, true);
+                applyPatch(object, id, patch);
+                validatePatched(object);
+                EntityType<E> entityType = em.getMetamodel().entity(getEntityClass());
+                Map<String, Object> before = readAttributes(entityType, entity);
+                convertToEntity(object, entity);
+                Set<String> changed = changedAttributes(entityType, entity, before);
+                metrics().record(Stage.CONVERT, System.nanoTime() - stage);
+                if (!changed.isEmpty()) {
+                    validatePatchedUniqueFields(entity, changed);
+                }
+
+                stage = System.nanoTime();
+                tx.commit();
+                metrics().record(Stage.PERSIST, System.nanoTime() - stage);
+                if (!changed.isEmpty()) {
+                    recordUniqueValues(entity);
+                    invalidateCache(id);
+                    publishChange(ChangeEvent.Type.UPDATED, id, () -> convertToDO(entity, false));
+                }
+                log.info("Successfully patched {} id: '{}' changed: {}", getEntityMetadata().getDisplayName(), id, changed);
+            } finally {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                em.close();
+            }
+        } catch (Exception e) {
+            metrics.failed(Operation.PATCH, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.PATCH, System.nanoTime() - start);
+        }
+    }
+
+    /*
+     * Sets the patched properties of the DO object.
+     */
+    private void applyPatch(T object, Object id, Map<String, Object> patch) throws StaleEntityException {
+        TypeMetadata doMetadata = TypeMetadata.of(object.getClass());
+        String idName = getEntityMetadata().getIdName();
+        String versionName = getEntityMetadata().getVersionName();
+        for (Map.Entry<String, Object> entry : patch.entrySet()) {
+            String name = entry.getKey();
+            Method getter = doMetadata.getGetter(name);
+            Method setter = doMetadata.getSetter(name);
+            if (getter == null || setter == null) {
+                throw new InputValidationException("Unknown or not patchable field: " + name);
+            }
+            Object current = doMetadata.read(getter, object);
+            Object value = AttributeValues.convert(name, getter.getReturnType(), entry.getValue());
+            if (name.equals(idName)) {
+                if (!Objects.equals(current, value)) {
+                    throw new InputValidationException(ID_MISMATCH_ERROR + id + "'");
+                }
+            } else if (name.equals(versionName)) {
+                if (!Objects.equals(current, value)) {
+                    throw isStacklessExceptionsEnabled() ? StaleEntityException.stackless(STALE_ENTITY_ERROR + id) : new StaleEntityException(STALE_ENTITY_ERROR + id);
+                }
+            } else if (!Objects.equals(current, value)) {
+                if (value == null && getter.getReturnType().isPrimitive()) {
+                    throw new InputValidationException("Field can not be null: " + name);
+                }
+                doMetadata.write(setter, object, value);
+            }
+        }
+    }
+
+    private void validatePatched(T object) {
+        Validator validator = getValidator();
+        if (validator == null) {
+            return;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(object);
+        if (!violations.isEmpty()) {
+            StringBuilder error = new StringBuilder("Invalid fields:");
+            for (ConstraintViolation<T> violation : violations) {
+                error.append(' ').append(violation.getPropertyPath()).append(": ").append(violation.getMessage()).append(';');
+            }
+            throw new InputValidationException(error.toString());
+        }
+    }
+
+    /*
+     * Values of the singular attributes other than id and version, to find the ones the conversion changed.
+     */
+    private Map<String, Object> readAttributes(EntityType<E> entityType, E entity) {
+        Map<String, Object> values = new HashMap<>();
+        for (SingularAttribute<? super E, ?> attribute : entityType.getSingularAttributes()) {
+            if (!attribute.isId() && !attribute.isVersion()) {
+                values.put(attribute.getName(), AttributeAccessor.of(attribute).get(entity));
+            }
+        }
+        return values;
+    }
+
+    private Set<String> changedAttributes(EntityType<E> entityType, E entity, Map<String, Object> before) {
+        Set<String> changed = new LinkedHashSet<>();
+        for (SingularAttribute<? super E, ?> attribute : entityType.getSingularAttributes()) {
+            String name = attribute.getName();
+            if (before.containsKey(name) && !Objects.equals(before.get(name), AttributeAccessor.of(attribute).get(entity))) {
+                changed.add(name);
+            }
+        }
+        return changed;
+    }
+
+    private void validatePatchedUniqueFields(E entity, Set<String> changed) {
+        long stage = System.nanoTime();
+        Map<String, Object> duplicates = null;
+        UniqueConstraints<E> constraints = getUniqueConstraints();
+        if (constraints == null) {
+            duplicates = findUniqueFieldViolations(convertToDO(entity, false), entity);
+        } else if (constraints.covers(changed)) {
+            EntityManager em = createUniqueConstraintsEntityManager();
+            try {
+                duplicates = constraints.findViolations(em, getEntityClass(), entity, getJpaController().getPrimaryKey(entity), changed);
+            } finally {
+                em.close();
+            }
+        } else {
+            log.debug("No unique field changed: {}", changed);
+        }
+        metrics().record(Stage.VALIDATE_UNIQUE, System.nanoTime() - stage);
+
+        if (duplicates != null && !duplicates.isEmpty()) {
+            throw new InputValidationException(formatViolations(UNIQUE_FIELDS_ERROR, duplicates));
+        }
     }
 
     @Override
     public void delete(Object id) throws Exception {
-        E entity = validateExisting(id, NON_EXISTING_ENTITY_ERROR + id);
-        String className = this.getSimpleClassName(entity);
-        log.info("Removing {} id: '{}'", className, id);
-        log.trace("Removing {} -> {}", className, entity);
-        getJpaController().delete(entity);
+        delete(id, null);
+    }
+
+    /*
+     * delete() that only removes the entity when it matches the condition, checked as for put().
+     */
+    @Override
+    public void delete(Object id, WriteCondition condition) throws Exception {
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.DELETE);
+        try {
+            if (condition != null && getEntityManagerFactory() != null) {
+                log.info("Removing {} id: '{}' {}", getEntityMetadata().getDisplayName(), id, condition);
+                executeIfMatches(id, condition, EntityManager::remove);
+                invalidateCache(id);
+                publishChange(ChangeEvent.Type.DELETED, id, () -> null);
+                return;
+            }
+            E entity = validateExisting(id);
+            if (condition != null) {
+                checkCondition(id, condition, entity);
+            }
+            String className = this.getSimpleClassName(entity);
+            log.info("Removing {} id: '{}'", className, id);
+            log.trace("Removing {} -> {}", className, entity);
+            long stage = System.nanoTime();
+            getJpaController().delete(entity);
+            metrics().record(Stage.PERSIST, System.nanoTime() - stage);
+            invalidateCache(id);
+            publishChange(ChangeEvent.Type.DELETED, id, () -> null);
+        } catch (Exception e) {
+            metrics.failed(Operation.DELETE, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.DELETE, System.nanoTime() - start);
+        }
     }
     
-    public boolean isExistingEntity(Object id) {
+    @Override
+    public List<BulkResult> postAll(List<T> objects) throws Exception {
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.POST_ALL);
         try {
-            log.debug("Checking if entity exists in DB with id: '{}'", id);
-            getJpaController().getReference(id);
-            return true;
-        } catch (EntityNotFoundException e) {
+            log.info("Creating {} new entries", objects.size());
+            List<BulkResult> results = new ArrayList<>(Collections.nCopies(objects.size(), (BulkResult) null));
+            if (getEntityManagerFactory() == null) {
+                for (int i = 0; i < objects.size(); i++) {
+                    try {
+                        results.set(i, BulkResult.success(i, post(objects.get(i)), Status.CREATED.getStatusCode()));
+                    } catch (Exception e) {
+                        results.set(i, toFailure(i, null, e));
+                    }
+                }
+                return results;
+            }
+
+            List<Integer> converted = new ArrayList<>();
+            List<T> convertedObjects = new ArrayList<>();
+            List<E> candidates = new ArrayList<>();
+            Map<Integer, E> entities = new HashMap<>();
+            for (int i = 0; i < objects.size(); i++) {
+                try {
+                    E entity = convertToEntity(objects.get(i));
+                    entities.put(i, entity);
+                    converted.add(i);
+                    convertedObjects.add(objects.get(i));
+                    candidates.add(entity);
+                } catch (RuntimeException e) {
+                    results.set(i, toFailure(i, null, e));
+                }
+            }
+
+            Map<Integer, Map<String, Object>> violations = findUniqueFieldViolations(convertedObjects, candidates, Collections.nCopies(candidates.size(), null), null);
+            List<Integer> pending = new ArrayList<>();
+            for (int j = 0; j < converted.size(); j++) {
+                int i = converted.get(j);
+                if (violations.containsKey(j)) {
+                    results.set(i, BulkResult.failure(i, null, Status.BAD_REQUEST.getStatusCode(), formatViolations(UNIQUE_FIELDS_ERROR, violations.get(j))));
+                } else {
+                    pending.add(i);
+                }
+            }
+
+            executeInChunks(pending, results, ChangeEvent.Type.CREATED, i -> convertToDO(entities.get(i), false), (em, chunk) -> {
+                for (Integer i : chunk) {
+                    // converted again on every attempt, a rolled back attempt leaves the generated id and version undefined
+                    E entity = convertToEntity(objects.get(i));
+                    entities.put(i, entity);
+                    em.persist(entity);
+                    recordUniqueValues(entity);
+                }
+                em.flush();
+                Map<Integer, BulkResult> chunkResults = new HashMap<>();
+                for (Integer i : chunk) {
+                    chunkResults.put(i, BulkResult.success(i, getJpaController().getPrimaryKey(entities.get(i)), Status.CREATED.getStatusCode()));
+                }
+                return chunkResults;
+            });
+            log.info("Finished creating {} entries", objects.size());
+            return results;
+        } catch (Exception e) {
+            metrics.failed(Operation.POST_ALL, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.POST_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<BulkResult> putAll(List<T> objects) throws Exception {
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.PUT_ALL);
+        try {
+            log.info("Updating {} entries", objects.size());
+            List<BulkResult> results = new ArrayList<>(Collections.nCopies(objects.size(), (BulkResult) null));
+            List<Object> ids = new ArrayList<>(objects.size());
+            List<E> candidates = new ArrayList<>(objects.size());
+            boolean needsCandidates = getUniqueConstraints() != null;
+            for (int i = 0; i < objects.size(); i++) {
+                Object id;
+                if (needsCandidates) {
+                    E candidate = convertToEntity(objects.get(i));
+                    id = getJpaController().getPrimaryKey(candidate);
+                    candidates.add(candidate);
+                } else {
+                    id = getPrimaryKey(objects.get(i));
+                    candidates.add(null);
+                }
+                ids.add(id);
+                if (id == null) {
+                    results.set(i, BulkResult.failure(i, null, Status.BAD_REQUEST.getStatusCode(), "Missing id field in provided json object"));
+                }
+            }
+
+            if (getEntityManagerFactory() == null) {
+                for (int i = 0; i < objects.size(); i++) {
+                    if (results.get(i) != null) {
+                        continue;
+                    }
+                    try {
+                        put(ids.get(i), objects.get(i));
+                        results.set(i, BulkResult.success(i, ids.get(i), Status.NO_CONTENT.getStatusCode()));
+                    } catch (Exception e) {
+                        results.set(i, toFailure(i, ids.get(i), e));
+                    }
+                }
+                return results;
+            }
+
+            List<Integer> pending = new ArrayList<>();
+            for (int i = 0; i < objects.size(); i++) {
+                if (results.get(i) == null) {
+                    pending.add(i);
+                }
+            }
+
+            Map<Integer, E> updated = new HashMap<>();
+            executeInChunks(pending, results, ChangeEvent.Type.UPDATED, i -> convertToDO(updated.get(i), false), (em, chunk) -> {
+                Map<Object, E> existing = findAllByPrimaryKey(em, chunk, ids);
+                Map<Integer, BulkResult> chunkResults = new HashMap<>();
+                List<Integer> found = new ArrayList<>();
+                for (Integer i : chunk) {
+                    if (existing.containsKey(ids.get(i))) {
+                        found.add(i);
+                    } else {
+                        chunkResults.put(i, BulkResult.failure(i, ids.get(i), Status.NOT_FOUND.getStatusCode(), NON_EXISTING_ENTITY_ERROR + ids.get(i)));
+                    }
+                }
+
+                List<T> foundObjects = new ArrayList<>(found.size());
+                List<E> foundCandidates = new ArrayList<>(found.size());
+                List<Object> foundIds = new ArrayList<>(found.size());
+                List<E> foundEntities = new ArrayList<>(found.size());
+                for (Integer i : found) {
+                    foundObjects.add(objects.get(i));
+                    foundCandidates.add(candidates.get(i));
+                    foundIds.add(ids.get(i));
+                    foundEntities.add(existing.get(ids.get(i)));
+                }
+                Map<Integer, Map<String, Object>> violations = findUniqueFieldViolations(foundObjects, foundCandidates, foundIds, foundEntities);
+                for (int j = 0; j < found.size(); j++) {
+                    int i = found.get(j);
+                    if (violations.containsKey(j)) {
+                        chunkResults.put(i, BulkResult.failure(i, ids.get(i), Status.BAD_REQUEST.getStatusCode(), formatViolations(UNIQUE_FIELDS_ERROR, violations.get(j))));
+                    } else {
+                        E entity = convertToEntity(objects.get(i), foundEntities.get(j));
+                        recordUniqueValues(entity);
+                        updated.put(i, entity);
+                        chunkResults.put(i, BulkResult.success(i, ids.get(i), Status.NO_CONTENT.getStatusCode()));
+                    }
+                }
+                em.flush();
+                return chunkResults;
+            });
+            log.info("Finished updating {} entries", objects.size());
+            return results;
+        } catch (Exception e) {
+            metrics.failed(Operation.PUT_ALL, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.PUT_ALL, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<BulkResult> deleteAll(List<Object> ids) throws Exception {
+        MetricsRecorder metrics = metrics();
+        long start = System.nanoTime();
+        metrics.started(Operation.DELETE_ALL);
+        try {
+            log.info("Removing {} entries", ids.size());
+            List<BulkResult> results = new ArrayList<>(Collections.nCopies(ids.size(), (BulkResult) null));
+            if (getEntityManagerFactory() == null) {
+                for (int i = 0; i < ids.size(); i++) {
+                    try {
+                        delete(ids.get(i));
+                        results.set(i, BulkResult.success(i, ids.get(i), Status.NO_CONTENT.getStatusCode()));
+                    } catch (Exception e) {
+                        results.set(i, toFailure(i, ids.get(i), e));
+                    }
+                }
+                return results;
+            }
+
+            List<Object> keys = new ArrayList<>(ids.size());
+            List<Integer> pending = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                keys.add(getJpaController().convertToPrimaryKeyType(ids.get(i)));
+                pending.add(i);
+            }
+
+            executeInChunks(pending, results, ChangeEvent.Type.DELETED, i -> null, (em, chunk) -> {
+                Map<Object, E> existing = findAllByPrimaryKey(em, chunk, keys);
+                Map<Integer, BulkResult> chunkResults = new HashMap<>();
+                for (Integer i : chunk) {
+                    E entity = existing.get(keys.get(i));
+                    if (entity == null) {
+                        chunkResults.put(i, BulkResult.failure(i, ids.get(i), Status.NOT_FOUND.getStatusCode(), NON_EXISTING_ENTITY_ERROR + ids.get(i)));
+                    } else {
+                        em.remove(entity);
+                        chunkResults.put(i, BulkResult.success(i, ids.get(i), Status.NO_CONTENT.getStatusCode()));
+                    }
+                }
+                em.flush();
+                return chunkResults;
+            });
+            log.info("Finished removing {} entries", ids.size());
+            return results;
+        } catch (Exception e) {
+            metrics.failed(Operation.DELETE_ALL, toMetricsFailure(e));
+            throw e;
+        } finally {
+            metrics.finished(Operation.DELETE_ALL, System.nanoTime() - start);
+        }
+    }
+
+    /*
+     * Work done for one chunk of a bulk operation inside an open transaction.
+     * Returns the result of every item of the chunk, keyed by the item index.
+     */
+    @FunctionalInterface
+    private interface ChunkWork {
+        Map<Integer, BulkResult> execute(EntityManager em, List<Integer> chunk) throws Exception;
+    }
+
+    /*
+     * - type, objects: change published for each item that succeeded, objects maps the item index to its DO object
+     */
+    private void executeInChunks(List<Integer> indexes, List<BulkResult> results, ChangeEvent.Type type, IntFunction<T> objects, ChunkWork work) {
+        int batchSize = Math.max(1, getBatchSize());
+        for (int from = 0; from < indexes.size(); from += batchSize) {
+            executeChunk(indexes.subList(from, Math.min(from + batchSize, indexes.size())), results, type, objects, work);
+        }
+    }
+
+    /*
+     * Runs the chunk in one transaction. When it rolls back because of an item, each half is retried on its own until
+     * the failing items are isolated, so every item gets its own outcome and one bad item costs the others a few extra
+     * transactions instead of failing them all. Bisecting stops on errors that are not caused by an item (connection,
+     * timeout, lock or transaction failures), the remaining items of the chunk fail with that error.
+     *  The work must build its entities on every attempt, a rolled back attempt leaves their generated ids and
+     *  versions undefined.
+     */
+    private void executeChunk(List<Integer> chunk, List<BulkResult> results, ChangeEvent.Type type, IntFunction<T> objects, ChunkWork work) {
+        Exception failure = commitChunk(chunk, results, type, objects, work);
+        if (failure != null) {
+            resolveChunk(chunk, failure, results, type, objects, work);
+        }
+    }
+
+    private void resolveChunk(List<Integer> chunk, Exception failure, List<BulkResult> results, ChangeEvent.Type type, IntFunction<T> objects,
+            ChunkWork work) {
+        if (chunk.size() == 1 || !isItemFailure(failure)) {
+            failChunk(chunk, failure, results);
+            return;
+        }
+        List<Integer> left = chunk.subList(0, chunk.size() / 2);
+        List<Integer> right = chunk.subList(chunk.size() / 2, chunk.size());
+        Exception leftFailure = commitChunk(left, results, type, objects, work);
+        if (leftFailure != null) {
+            resolveChunk(left, leftFailure, results, type, objects, work);
+        }
+        Exception rightFailure = commitChunk(right, results, type, objects, work);
+        if (rightFailure != null) {
+            resolveChunk(right, rightFailure, results, type, objects, work);
+        }
+    }
+
+    /*
+     * return exception the chunk was rolled back with, or null when it committed and its results are recorded.
+     */
+    private Exception commitChunk(List<Integer> chunk, List<BulkResult> results, ChangeEvent.Type type, IntFunction<T> objects, ChunkWork work) {
+        EntityManager em = getEntityManagerFactory().createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            Map<Integer, BulkResult> chunkResults = work.execute(em, chunk);
+            tx.commit();
+            chunkResults.forEach(results::set);
+            chunkResults.values().stream().filter(BulkResult::isSuccess).forEach(result -> {
+                invalidateCache(result.getId());
+                publishChange(type, result.getId(), () -> objects.apply(result.getIndex()));
+            });
+            return null;
+        } catch (Exception e) {
+            log.debug("Rolling back bulk chunk of {} items: {}", chunk.size(), e.getMessage());
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            return e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private void failChunk(List<Integer> chunk, Exception failure, List<BulkResult> results) {
+        if (chunk.size() == 1) {
+            log.error("Bulk item {} failed: {}", chunk.get(0), failure.getMessage());
+        } else {
+            log.error("Bulk items {} to {} failed: {}", chunk.get(0), chunk.get(chunk.size() - 1), failure.getMessage());
+        }
+        log.debug("Bulk failure", failure);
+        for (Integer i : chunk) {
+            results.set(i, toFailure(i, null, failure));
+        }
+    }
+
+    /*
+     * False for failures of the connection, the transaction or a lock, retrying a part of the chunk fails the same way.
+     */
+    private static boolean isItemFailure(Exception e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof SQLTransientConnectionException || t instanceof SQLNonTransientConnectionException
+                    || t instanceof SQLRecoverableException || t instanceof SQLTimeoutException || t instanceof SQLTransactionRollbackException
+                    || t instanceof QueryTimeoutException || t instanceof LockTimeoutException || t instanceof PessimisticLockException) {
+                return false;
+            }
+            if (t instanceof SQLException) {
+                // 08: connection exception, 40: transaction rollback
+                String state = ((SQLException) t).getSQLState();
+                if (state != null && (state.startsWith("08") || state.startsWith("40"))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private Map<Object, E> findAllByPrimaryKey(EntityManager em, List<Integer> chunk, List<Object> ids) {
+        EntityType<E> entityType = em.getMetamodel().entity(getEntityClass());
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        List<Object> keys = new ArrayList<>(chunk.size());
+        for (Integer i : chunk) {
+            keys.add(ids.get(i));
+        }
+
+        String jpql = "SELECT e FROM " + entityType.getName() + " e WHERE e." + idName + " IN :ids";
+        Map<Object, E> entities = new HashMap<>();
+        for (E entity : em.createQuery(jpql, getEntityClass()).setParameter("ids", keys).getResultList()) {
+            entities.put(getJpaController().getPrimaryKey(entity), entity);
+        }
+        return entities;
+    }
+
+    private MetricsRecorder metrics() {
+        MetricsRecorder recorder = metricsRecorder;
+        if (recorder == null) {
+            MetricsRegistry registry = getMetricsRegistry();
+            recorder = registry == null ? MetricsRecorder.NOOP : registry.recorder(getMetricsName());
+            metricsRecorder = recorder;
+        }
+        return recorder;
+    }
+
+    private static Failure toMetricsFailure(Exception e) {
+        if (e instanceof NonExistingEntityException) {
+            return Failure.NOT_FOUND;
+        } else if (e instanceof PreExistingEntityException || e instanceof StaleEntityException || e instanceof PreconditionFailedException) {
+            return Failure.CONFLICT;
+        } else if (e instanceof InputValidationException || e instanceof IllegalArgumentException) {
+            return Failure.VALIDATION;
+        }
+        return Failure.ERROR;
+    }
+
+    private BulkResult toFailure(int index, Object id, Exception e) {
+        int status = Status.INTERNAL_SERVER_ERROR.getStatusCode();
+        if (e instanceof NonExistingEntityException) {
+            status = Status.NOT_FOUND.getStatusCode();
+        } else if (e instanceof PreExistingEntityException || e instanceof StaleEntityException) {
+            status = Status.CONFLICT.getStatusCode();
+        } else if (e instanceof PreconditionFailedException) {
+            status = Status.PRECONDITION_FAILED.getStatusCode();
+        } else if (e instanceof InputValidationException || e instanceof IllegalArgumentException) {
+            status = Status.BAD_REQUEST.getStatusCode();
+        }
+        return BulkResult.failure(index, id, status, e);
+    }
+
+    /*
+     * Entity class resolved from the type arguments of the concrete controller.
+     * Override when the controller is itself generic and the type can not be resolved.
+     */
+    @SuppressWarnings("unchecked")
+    protected Class<E> getEntityClass() {
+        if (entityClass == null) {
+            Type type = getClass().getGenericSuperclass();
+            while (!(type instanceof ParameterizedType) || ((ParameterizedType) type).getRawType() != AbstractWsController.class) {
+                if (type instanceof ParameterizedType) {
+                    type = ((Class<?>) ((ParameterizedType) type).getRawType()).getGenericSuperclass();
+                } else if (type instanceof Class && type != Object.class) {
+                    type = ((Class<?>) type).getGenericSuperclass();
+                } else {
+                    throw new IllegalStateException("Could not resolve entity class of " + getClass().getName() + ", override getEntityClass()");
+                }
+            }
+            Type argument = ((ParameterizedType) type).getActualTypeArguments()[1];
+            if (!(argument instanceof Class)) {
+                throw new IllegalStateException("Could not resolve entity class of " + getClass().getName() + ", override getEntityClass()");
+            }
+            entityClass = (Class<E>) argument;
+        }
+        return entityClass;
+    }
+
+    private TypeMetadata getEntityMetadata() {
+        TypeMetadata metadata = entityMetadata;
+        if (metadata == null) {
+            try {
+                metadata = TypeMetadata.of(getEntityClass());
+            } catch (IllegalStateException e) {
+                log.debug("Entity class of {} is not known, primary keys are read by conversion", getClass().getName());
+                metadata = TypeMetadata.of(Object.class);
+            }
+            entityMetadata = metadata;
+        }
+        return metadata;
+    }
+
+    public boolean isExistingEntity(Object id) {
+        if (isKnownMissing(id)) {
             return false;
         }
+        log.debug("Checking if entity exists in DB with id: '{}'", id);
+        Boolean existing = readFrom(id, getReadJpaController(), getJpaController(), controller -> {
+            try {
+                controller.getReference(id);
+                return Boolean.TRUE;
+            } catch (EntityNotFoundException e) {
+                return null;
+            }
+        });
+        if (existing == null) {
+            recordMissing(id);
+            return false;
+        }
+        return true;
     }
     
     public E validateExisting(Object id, String error) throws NonExistingEntityException {
+        E entity = findExisting(id, false);
+        if (entity == null) {
+            throw notFound(error);
+        }
+        return entity;
+    }
+
+    /*
+     * validateExisting() with the default error message, only built when the entity does not exist.
+     */
+    public E validateExisting(Object id) throws NonExistingEntityException {
+        E entity = findExisting(id, false);
+        if (entity == null) {
+            throw notFound(NON_EXISTING_ENTITY_ERROR + id);
+        }
+        return entity;
+    }
+
+    /*
+     * validateExisting() for reads that may be served by the read replica, entities found are not to be modified.
+     */
+    private E validateExistingForRead(Object id) throws NonExistingEntityException {
+        E entity = findExisting(id, true);
+        if (entity == null) {
+            throw notFound(NON_EXISTING_ENTITY_ERROR + id);
+        }
+        return entity;
+    }
+
+    private E findExisting(Object id, boolean readOnly) {
+        if (isKnownMissing(id)) {
+            return null;
+        }
         log.debug("Validating entity exists in DB with id: '{}'", id);
-    	E entity = getJpaController().findByPrimaryKey(id);
+        long stage = System.nanoTime();
+        E entity = readOnly ? readFrom(id, getReadJpaController(), getJpaController(), controller -> controller.findByPrimaryKey(id))
+                : getJpaController().findByPrimaryKey(id);
+        metrics().record(Stage.VALIDATE_EXISTING, System.nanoTime() - stage);
         if (entity == null) {
-            throw new NonExistingEntityException(error);
+            recordMissing(id);
         }
         return entity;
     }
     
     public void validateUniqueFields(T object, E entity, String error) {
+        E candidate = getUniqueConstraints() == null ? entity : convertToEntity(object);
+        validateUniqueFields(object, candidate, entity, error);
+    }
+
+    /*
+     * Validates unique fields of the given candidate entity, which holds the new values of the DO object.
+     *  existing is the entity being updated and is excluded from matching, null on create.
+     */
+    public void validateUniqueFields(T object, E candidate, E existing, String error) {
         String className = this.getSimpleClassName(object);
         log.debug("Validating unique fields for {}", className);
-        log.trace("Validating unique fields of {} with {}", object, entity);
-    	Map<String, Object> duplicates = findUniqueFieldViolations(object, entity);
+        log.trace("Validating unique fields of {} with {}", object, existing);
+        long stage = System.nanoTime();
+        Map<String, Object> duplicates;
+        UniqueConstraints<E> constraints = getUniqueConstraints();
+        if (constraints == null) {
+            duplicates = findUniqueFieldViolations(object, existing);
+        } else {
+            Object excludeId = existing == null ? null : getJpaController().getPrimaryKey(existing);
+            EntityManager em = createUniqueConstraintsEntityManager();
+            try {
+                duplicates = constraints.findViolations(em, getEntityClass(), candidate, excludeId);
+            } finally {
+                em.close();
+            }
+        }
+        metrics().record(Stage.VALIDATE_UNIQUE, System.nanoTime() - stage);
     	
     	if(duplicates != null && !duplicates.isEmpty()) {
-    	    List<String> errors = new ArrayList<>();
-    		duplicates.forEach((field, value) -> {
-    			errors.add(field + ": " + value.toString());
-    		});
-    		
-    		String errorMsg = error + " " + String.join(",", errors);
-    		throw new InputValidationException(errorMsg);
+    		throw new InputValidationException(formatViolations(error, duplicates));
     	}
     }
+
+    /*
+     * Batch counterpart of validateUniqueFields(), uses a single query for the whole batch when constraints are declared.
+     */
+    private Map<Integer, Map<String, Object>> findUniqueFieldViolations(List<T> objects, List<E> candidates, List<Object> excludeIds, List<E> existing) {
+        UniqueConstraints<E> constraints = getUniqueConstraints();
+        if (constraints == null) {
+            return findUniqueFieldViolations(objects, existing);
+        }
+        EntityManager em = createUniqueConstraintsEntityManager();
+        try {
+            return constraints.findViolations(em, getEntityClass(), candidates, excludeIds);
+        } finally {
+            em.close();
+        }
+    }
+
+    private EntityManager createUniqueConstraintsEntityManager() {
+        EntityManagerFactory emf = getEntityManagerFactory();
+        if (emf == null) {
+            throw new IllegalStateException("Unique constraints require getEntityManagerFactory() to be provided by " + getClass().getSimpleName());
+        }
+        return emf.createEntityManager();
+    }
+
+    private void recordUniqueValues(E entity) {
+        UniqueConstraints<E> constraints = getUniqueConstraints();
+        if (constraints != null) {
+            constraints.record(entity);
+        }
+    }
+
+    private String formatViolations(String error, Map<String, Object> duplicates) {
+        List<String> errors = new ArrayList<>();
+        duplicates.forEach((field, value) -> {
+            errors.add(field + ": " + value.toString());
+        });
+        return error + " " + String.join(",", errors);
+    }
     
     public void validateIdMatch(Object id, T object, String error) {
+        if (!isIdMatch(id, object)) {
+            throw new InputValidationException(error);
+        }
+    }
+
+    /*
+     * validateIdMatch() with the default error message, only built when the ids do not match.
+     */
+    public void validateIdMatch(Object id, T object) {
+        if (!isIdMatch(id, object)) {
+            throw new InputValidationException(ID_MISMATCH_ERROR + id + "'");
+        }
+    }
+
+    private boolean isIdMatch(Object id, T object) {
         Object id1 = getJpaController().convertToPrimaryKeyType(id);
-        Object id2 = getJpaController().getPrimaryKey(convertToEntity(object));
+        Object id2 = getPrimaryKey(object);
         log.debug("Validating id: '{}' matches the given object's id: '{}'", id1, id2);
-        if (!Objects.equals(id1, id2)) {
-            throw new InputValidationException(error);
-        }	
+        return Objects.equals(id1, id2);
     }
     
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.metamodel.Attribute;
+
+/*
+ * Reads a metamodel attribute of an entity instance through its java member (field or property).
+ *  Accessors are resolved once per member and cached. There is no write: writes go through the DO conversion, so the
+ *  entity setters and the change tracking of the provider see them.
+ */
+final class AttributeAccessor {
+
+    private static final ConcurrentMap<Member, AttributeAccessor> ACCESSORS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Field field;
+    private final Method getter;
+
+    private AttributeAccessor(String name, Member member) {
+        this.name = name;
+        if (member instanceof Field) {
+            this.field = (Field) member;
+            this.field.setAccessible(true);
+            this.getter = null;
+        } else if (member instanceof Method) {
+            this.field = null;
+            this.getter = (Method) member;
+            this.getter.setAccessible(true);
+        } else {
+            throw new IllegalStateException("Unsupported member for attribute " + name + ": " + member);
+        }
+    }
+
+    static AttributeAccessor of(Attribute<?, ?> attribute) {
+        return ACCESSORS.computeIfAbsent(attribute.getJavaMember(), member -> new AttributeAccessor(attribute.getName(), member));
+    }
+
+    Object get(Object entity) {
+        try {
+            return field != null ? field.get(entity) : getter.invoke(entity);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not read attribute " + name + " of " + entity.getClass().getName(), e);
+        }
+    }
+}
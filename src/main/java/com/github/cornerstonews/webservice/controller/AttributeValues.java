@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+import com.github.cornerstonews.webservice.exception.InputValidationException;
+
+/*
+ * Converts request values (query parameters, json scalars) to the java type of an entity attribute.
+ *  Dates and instants are read from ISO-8601 text or epoch milliseconds.
+ */
+final class AttributeValues {
+
+    private AttributeValues() {
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static Object convert(String attribute, Class<?> type, Object value) {
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+
+        String text = value.toString().trim();
+        try {
+            if (type == String.class) {
+                return value.toString();
+            } else if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(text);
+            } else if (type == Long.class || type == long.class) {
+                return Long.valueOf(text);
+            } else if (type == Short.class || type == short.class) {
+                return Short.valueOf(text);
+            } else if (type == Byte.class || type == byte.class) {
+                return Byte.valueOf(text);
+            } else if (type == Double.class || type == double.class) {
+                return Double.valueOf(text);
+            } else if (type == Float.class || type == float.class) {
+                return Float.valueOf(text);
+            } else if (type == Boolean.class || type == boolean.class) {
+                if (!"true".equalsIgnoreCase(text) && !"false".equalsIgnoreCase(text)) {
+                    throw new IllegalArgumentException(text);
+                }
+                return Boolean.valueOf(text);
+            } else if (type == Character.class || type == char.class) {
+                if (text.length() != 1) {
+                    throw new IllegalArgumentException(text);
+                }
+                return text.charAt(0);
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(text);
+            } else if (type == BigInteger.class) {
+                return new BigInteger(text);
+            } else if (type == UUID.class) {
+                return UUID.fromString(text);
+            } else if (type.isEnum()) {
+                return Enum.valueOf((Class<? extends Enum>) type, text);
+            } else if (type == Instant.class) {
+                return value instanceof Number ? Instant.ofEpochMilli(((Number) value).longValue()) : Instant.parse(text);
+            } else if (type == Date.class) {
+                return Date.from(value instanceof Number ? Instant.ofEpochMilli(((Number) value).longValue()) : Instant.parse(text));
+            } else if (type == LocalDate.class) {
+                return LocalDate.parse(text);
+            } else if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(text);
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InputValidationException("Invalid value '" + value + "' for field: " + attribute);
+        }
+        throw new InputValidationException("Unsupported value type " + type.getSimpleName() + " for field: " + attribute);
+    }
+}
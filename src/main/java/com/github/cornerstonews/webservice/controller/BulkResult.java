@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+/*
+ * Outcome of a single item of a bulk operation.
+ *  - index: position of the item in the submitted list
+ *  - id: primary key of the item, if known
+ *  - status: http status the item would have gotten as a single request
+ *  - error: reason the item failed, null on success
+ */
+public class BulkResult {
+
+    private int index;
+    private Object id;
+    private int status;
+    private String error;
+    // Exception behind a failure, kept in memory only for callers that rethrow it
+    private transient Exception cause;
+
+    public BulkResult() {
+    }
+
+    public BulkResult(int index, Object id, int status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BulkResult success(int index, Object id, int status) {
+        return new BulkResult(index, id, status, null);
+    }
+
+    public static BulkResult failure(int index, Object id, int status, String error) {
+        return new BulkResult(index, id, status, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    public void setId(Object id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    static BulkResult failure(int index, Object id, int status, Exception cause) {
+        String error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+        BulkResult result = new BulkResult(index, id, status, error);
+        result.cause = cause;
+        return result;
+    }
+
+    Exception cause() {
+        return cause;
+    }
+
+    /*
+     * Told by the 2xx status rather than by a missing error.
+     */
+    public boolean isSuccess() {
+        return status >= 200 && status < 300;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult [index=" + index + ", id=" + id + ", status=" + status + ", error=" + error + "]";
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.util.Date;
+
+/*
+ * A committed change of an entity, as published to the ChangeFeed.
+ *  - sequence: position in the feed, increasing by one per change
+ *  - type: created, updated or deleted
+ *  - id: primary key of the entity
+ *  - object: DO object after the change, null for deletes and when the feed does not include objects
+ *  - timestamp: time the change was published
+ */
+public class ChangeEvent<T> {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final Object id;
+    private final T object;
+    private final Date timestamp;
+
+    public ChangeEvent(long sequence, Type type, Object id, T object, Date timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.id = id;
+        this.object = object;
+        this.timestamp = timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    public T getObject() {
+        return object;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent [sequence=" + sequence + ", type=" + type + ", id=" + id + "]";
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Bounded in memory feed of the last changes committed through a controller.
+ *
+ *  Changes are kept in a ring buffer of fixed capacity, publishing never blocks on consumers. Consumers read at
+ *  their own pace by sequence and are notified through their listener when a change is published; a consumer that
+ *  falls more than capacity changes behind sees a gap in the sequence and has to resynchronize.
+ *  Sequences restart with every feed instance, getEpoch() tells instances apart.
+ *  Share one instance between all controller instances of a type.
+ */
+public class ChangeFeed<T> {
+
+    private final ChangeEvent<T>[] events;
+    private final boolean includeObjects;
+    private final long epoch = System.currentTimeMillis();
+    private final Set<Runnable> listeners = ConcurrentHashMap.newKeySet();
+    private long lastSequence;
+
+    /*
+     * includeObjects: publish the DO object of the committed entity with created and updated changes, costs a
+     *  conversion per write, and a read of the entity for puts not holding it (blind and non batched updates).
+     */
+    @SuppressWarnings("unchecked")
+    public ChangeFeed(int capacity, boolean includeObjects) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.events = new ChangeEvent[capacity];
+        this.includeObjects = includeObjects;
+    }
+
+    public boolean isIncludingObjects() {
+        return includeObjects;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public void publish(ChangeEvent.Type type, Object id, T object) {
+        synchronized (this) {
+            long sequence = ++lastSequence;
+            events[(int) (sequence % events.length)] = new ChangeEvent<>(sequence, type, id, includeObjects ? object : null, new Date());
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /*
+     * return oldest retained change after the given sequence, or null when there is none yet.
+     *  Its sequence is higher than after + 1 when the changes in between were already overwritten.
+     */
+    public synchronized ChangeEvent<T> next(long after) {
+        if (after >= lastSequence) {
+            return null;
+        }
+        long sequence = Math.max(after + 1, lastSequence - events.length + 1);
+        return events[(int) (sequence % events.length)];
+    }
+
+    /*
+     * The listener is run on the publishing thread after every change and must return quickly.
+     */
+    public void subscribe(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Runnable listener) {
+        listeners.remove(listener);
+    }
+}
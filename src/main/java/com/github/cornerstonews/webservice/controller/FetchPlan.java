@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+ * Attributes and relationships a client asked for, from the fields= and expand= request parameters.
+ *
+ *  - fields: attribute names to return, null for all attributes
+ *  - expand: relationship names to load and convert, nested ones in dotted form (orders.items)
+ *  FetchPlan.ALL is the default: every attribute and every relationship, as get() always did.
+ */
+public class FetchPlan {
+
+    public static final FetchPlan ALL = new FetchPlan(null, Collections.emptySet(), true);
+
+    private final Set<String> fields;
+    private final Set<String> expand;
+    private final boolean all;
+
+    private FetchPlan(Set<String> fields, Set<String> expand, boolean all) {
+        this.fields = fields;
+        this.expand = expand;
+        this.all = all;
+    }
+
+    /*
+     * Builds a plan from comma separated lists, either may be null or empty.
+     */
+    public static FetchPlan of(String fields, String expand) {
+        Set<String> fieldSet = split(fields);
+        Set<String> expandSet = split(expand);
+        if (fieldSet.isEmpty() && expandSet.isEmpty()) {
+            return ALL;
+        }
+        return new FetchPlan(fieldSet.isEmpty() ? null : fieldSet, expandSet, false);
+    }
+
+    private static Set<String> split(String list) {
+        if (list == null || list.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        Arrays.stream(list.split(",")).map(String::trim).filter(name -> !name.isEmpty()).forEach(names::add);
+        return Collections.unmodifiableSet(names);
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    /*
+     * Requested attribute names, null when all attributes are requested.
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public Set<String> getExpand() {
+        return expand;
+    }
+
+    public boolean hasExpansions() {
+        return all || !expand.isEmpty();
+    }
+
+    /*
+     * Normalized form of the plan, the same for plans asking for the same attributes and relationships in any
+     * order. Empty for ALL.
+     */
+    public String getVariant() {
+        if (all) {
+            return "";
+        }
+        return "fields=" + (fields == null ? "*" : String.join(",", new TreeSet<>(fields))) + ";expand=" + String.join(",", new TreeSet<>(expand));
+    }
+
+    /*
+     * true when the converter should populate the given attribute.
+     */
+    public boolean includes(String field) {
+        return all || fields == null || fields.contains(field) || expands(field);
+    }
+
+    /*
+     * true when the converter should load and convert the given relationship.
+     */
+    public boolean expands(String relationship) {
+        if (all) {
+            return true;
+        }
+        for (String name : expand) {
+            if (name.equals(relationship) || name.startsWith(relationship + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FetchPlan)) {
+            return false;
+        }
+        FetchPlan other = (FetchPlan) obj;
+        return all == other.all && Objects.equals(fields, other.fields) && expand.equals(other.expand);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(all, fields, expand);
+    }
+
+    @Override
+    public String toString() {
+        return all ? "FetchPlan [all]" : "FetchPlan [fields=" + fields + ", expand=" + expand + "]";
+    }
+}
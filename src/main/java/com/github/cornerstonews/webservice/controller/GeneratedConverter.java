@@ -0,0 +1,440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/*
+ * DoConverter built once per DO / Entity type pair, without reflection on the conversion path.
+ *
+ *  Bean properties present on both types with compatible types are copied through getters and setters bound
+ *  with LambdaMetafactory, so every conversion is a straight run of direct calls.
+ *  Bean properties are those of TypeMetadata, the same the rest of the controller uses.
+ *  Relationships are registered with a converter of their own and are only converted to DO objects when
+ *  expandChild is true (one level deep, children are converted with expandChild false). Collections are
+ *  converted element by element, and an object reachable more than once within a single conversion is converted
+ *  once and shared, so identity (and cycles) are preserved.
+ *  Converting to an entity updates the children already related to it in place, matched by id, so a managed
+ *  entity keeps its managed children. Only children that are not related yet are created.
+ *  Properties that are neither compatible nor registered are left alone, generic properties (collections in
+ *  particular) are only compatible with the same type arguments.
+ *
+ *  For example:
+ *      GeneratedConverter.builder(PersonaDO.class, Persona.class)
+ *          .relationship("addresses", addressConverter)
+ *          .build();
+ */
+public class GeneratedConverter<T, E> implements DoConverter<T, E> {
+
+    private static final Logger log = LogManager.getLogger(GeneratedConverter.class);
+
+    private final Class<T> doClass;
+    private final Class<E> entityClass;
+    private final Supplier<Object> doFactory;
+    private final Supplier<Object> entityFactory;
+    private final List<Property> toDO;
+    private final List<Property> toEntity;
+
+    private GeneratedConverter(Builder<T, E> builder) {
+        this.doClass = builder.doClass;
+        this.entityClass = builder.entityClass;
+        this.doFactory = constructor(doClass);
+        this.entityFactory = constructor(entityClass);
+        this.toDO = properties(entityClass, doClass, builder.relationships);
+        this.toEntity = properties(doClass, entityClass, builder.relationships);
+        log.debug("Generated converter {} <-> {} with {} properties", doClass.getSimpleName(), entityClass.getSimpleName(), toDO.size());
+    }
+
+    public static <T, E> Builder<T, E> builder(Class<T> doClass, Class<E> entityClass) {
+        return new Builder<>(doClass, entityClass);
+    }
+
+    public static <T, E> GeneratedConverter<T, E> of(Class<T> doClass, Class<E> entityClass) {
+        return builder(doClass, entityClass).build();
+    }
+
+    public static class Builder<T, E> {
+        private final Class<T> doClass;
+        private final Class<E> entityClass;
+        private final Map<String, DoConverter<?, ?>> relationships = new HashMap<>();
+
+        private Builder(Class<T> doClass, Class<E> entityClass) {
+            this.doClass = doClass;
+            this.entityClass = entityClass;
+        }
+
+        /*
+         * Registers the converter of a relationship property, single valued or a collection of its elements.
+         */
+        public Builder<T, E> relationship(String property, DoConverter<?, ?> converter) {
+            relationships.put(property, converter);
+            return this;
+        }
+
+        public GeneratedConverter<T, E> build() {
+            return new GeneratedConverter<>(this);
+        }
+    }
+
+    @Override
+    public T convert(E entity, boolean expandChild) {
+        return toDO(entity, expandChild ? FetchPlan.ALL : null, new IdentityHashMap<>());
+    }
+
+    /*
+     * Converts only the properties included in the plan and the relationships it expands.
+     */
+    public T convert(E entity, FetchPlan plan) {
+        return toDO(entity, plan, new IdentityHashMap<>());
+    }
+
+    @Override
+    public E convert(T object) {
+        return convert(object, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E convert(T object, E entity) {
+        if (object == null) {
+            return entity;
+        }
+        Map<Object, Object> converted = new IdentityHashMap<>();
+        E target = entity != null ? entity : (E) entityFactory.get();
+        converted.put(object, target);
+        copy(object, target, toEntity, null, true, converted);
+        return target;
+    }
+
+    /*
+     * plan null: no relationships, FetchPlan.ALL: all properties and relationships
+     */
+    @SuppressWarnings("unchecked")
+    private T toDO(E entity, FetchPlan plan, Map<Object, Object> converted) {
+        if (entity == null) {
+            return null;
+        }
+        Object existing = converted.get(entity);
+        if (existing != null) {
+            return (T) existing;
+        }
+        T object = (T) doFactory.get();
+        converted.put(entity, object);
+        copy(entity, object, toDO, plan, false, converted);
+        return object;
+    }
+
+    private static void copy(Object source, Object target, List<Property> properties, FetchPlan plan, boolean toEntity, Map<Object, Object> converted) {
+        for (int i = 0, size = properties.size(); i < size; i++) {
+            Property property = properties.get(i);
+            if (property.converter == null) {
+                if (plan == null || plan.includes(property.name)) {
+                    property.setter.accept(target, property.getter.apply(source));
+                }
+            } else if (toEntity || (plan != null && plan.expands(property.name))) {
+                property.setter.accept(target, property.convert(property.getter.apply(source), toEntity, target, converted));
+            }
+        }
+    }
+
+    /*
+     * One copied property: bound getter of the source type, bound setter of the target type and, for relationships,
+     * the converter of the related type.
+     */
+    private static class Property {
+        private final String name;
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+        private final Function<Object, Object> targetGetter;
+        private final DoConverter<Object, Object> converter;
+        private final Class<?> collectionType;
+
+        Property(String name, Function<Object, Object> getter, BiConsumer<Object, Object> setter, Function<Object, Object> targetGetter,
+                DoConverter<Object, Object> converter, Class<?> collectionType) {
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+            this.targetGetter = targetGetter;
+            this.converter = converter;
+            this.collectionType = collectionType;
+        }
+
+        @SuppressWarnings("unchecked")
+        Object convert(Object value, boolean toEntity, Object target, Map<Object, Object> converted) {
+            if (value == null) {
+                return null;
+            }
+            Object current = toEntity && targetGetter != null ? targetGetter.apply(target) : null;
+            if (collectionType == null) {
+                return convertOne(value, toEntity, converted, current == null ? null : byId(Collections.singletonList(current)));
+            }
+
+            Collection<Object> result = null;
+            Map<Object, Object> related = null;
+            if (current != null) {
+                // keep the managed collection instance so orphan removal keeps working
+                result = (Collection<Object>) current;
+                related = byId(result);
+                result.clear();
+            }
+            if (result == null) {
+                result = Set.class.isAssignableFrom(collectionType) ? new LinkedHashSet<>() : new ArrayList<>();
+            }
+            for (Object element : (Collection<Object>) value) {
+                result.add(convertOne(element, toEntity, converted, related));
+            }
+            return result;
+        }
+
+        /*
+         * - related: entities currently related to the target by id, the one with the id of the value is updated
+         *   instead of creating a new entity
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object convertOne(Object value, boolean toEntity, Map<Object, Object> converted, Map<Object, Object> related) {
+            if (value == null) {
+                return null;
+            }
+            Object existing = converted.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            Object entity = toEntity ? findRelated(value, related) : null;
+            Object result;
+            if (converter instanceof GeneratedConverter) {
+                GeneratedConverter nested = (GeneratedConverter) converter;
+                if (toEntity) {
+                    result = entity != null ? entity : nested.entityFactory.get();
+                    converted.put(value, result);
+                    copy(value, result, nested.toEntity, null, true, converted);
+                } else {
+                    result = nested.toDO(value, null, converted);
+                }
+            } else {
+                result = toEntity ? (entity != null ? converter.convert(value, entity) : converter.convert(value)) : converter.convert(value, false);
+                converted.put(value, result);
+            }
+            return result;
+        }
+
+        private static Map<Object, Object> byId(Collection<Object> entities) {
+            Map<Object, Object> byId = new HashMap<>();
+            for (Object entity : entities) {
+                Object id = entity == null ? null : TypeMetadata.of(entity.getClass()).getId(entity);
+                if (id != null) {
+                    byId.put(id, entity);
+                }
+            }
+            return byId;
+        }
+
+        /*
+         * Related entity with the id of the given DO object, null when the DO has no id or it is not related yet.
+         */
+        private static Object findRelated(Object object, Map<Object, Object> related) {
+            if (related == null || related.isEmpty()) {
+                return null;
+            }
+            TypeMetadata entity = TypeMetadata.of(related.values().iterator().next().getClass());
+            TypeMetadata metadata = TypeMetadata.of(object.getClass());
+            Object id = metadata.read(metadata.getIdGetter(entity), object);
+            return id == null ? null : related.get(id);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Property> properties(Class<?> sourceClass, Class<?> targetClass, Map<String, DoConverter<?, ?>> relationships) {
+        TypeMetadata source = TypeMetadata.of(sourceClass);
+        TypeMetadata target = TypeMetadata.of(targetClass);
+        List<Property> properties = new ArrayList<>();
+        for (Map.Entry<String, Method> entry : target.getSetters().entrySet()) {
+            String name = entry.getKey();
+            Method setter = entry.getValue();
+            Method getter = source.getGetter(name);
+            if (getter == null) {
+                continue;
+            }
+            Class<?> targetType = setter.getParameterTypes()[0];
+            DoConverter<Object, Object> converter = (DoConverter<Object, Object>) relationships.get(name);
+            if (converter != null) {
+                Class<?> collectionType = Collection.class.isAssignableFrom(targetType) ? targetType : null;
+                Method targetGetter = target.getGetter(name);
+                properties.add(new Property(name, bindGetter(getter), bindSetter(setter), targetGetter == null ? null : bindGetter(targetGetter), converter, collectionType));
+            } else if (isCopyable(getter, setter)) {
+                properties.add(new Property(name, bindGetter(getter), bindSetter(setter), null, null, null));
+            } else {
+                log.debug("Skipping property {} of {}, {} can not be copied to {}", name, targetClass.getSimpleName(), getter.getReturnType().getSimpleName(), targetType.getSimpleName());
+            }
+        }
+        return properties;
+    }
+
+    /*
+     * Plain types must be assignable. Generic types must be the same on both sides, and collections and maps must
+     * declare the same element types, so an unregistered List<AddressEntity> is never copied into a List<AddressDO>.
+     */
+    private static boolean isCopyable(Method getter, Method setter) {
+        Type source = getter.getGenericReturnType();
+        Type target = setter.getGenericParameterTypes()[0];
+        Class<?> targetType = setter.getParameterTypes()[0];
+        if (Collection.class.isAssignableFrom(targetType) || Map.class.isAssignableFrom(targetType)) {
+            return source instanceof ParameterizedType && source.equals(target);
+        }
+        if (source instanceof Class && target instanceof Class) {
+            return wrap(targetType).isAssignableFrom(wrap(getter.getReturnType()));
+        }
+        return source.equals(target);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> bindGetter(Method getter) {
+        MethodHandle handle = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(getter.getDeclaringClass(), MethodHandles.lookup());
+            handle = lookup.unreflect(getter);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), handle,
+                    MethodType.methodType(wrap(getter.getReturnType()), getter.getDeclaringClass()));
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            log.debug("Could not bind getter {}, using method handle: {}", getter, e.getMessage());
+            MethodHandle fallback = handle(handle, getter);
+            return object -> {
+                try {
+                    return fallback.invoke(object);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Could not read " + getter, t);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> bindSetter(Method setter) {
+        MethodHandle handle = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(setter.getDeclaringClass(), MethodHandles.lookup());
+            handle = lookup.unreflect(setter);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, setter.getDeclaringClass(), wrap(setter.getParameterTypes()[0])));
+            BiConsumer<Object, Object> consumer = (BiConsumer<Object, Object>) site.getTarget().invoke();
+            if (!setter.getParameterTypes()[0].isPrimitive()) {
+                return consumer;
+            }
+            // null can not be unboxed into a primitive, leave the default value
+            return (target, value) -> {
+                if (value != null) {
+                    consumer.accept(target, value);
+                }
+            };
+        } catch (Throwable e) {
+            log.debug("Could not bind setter {}, using method handle: {}", setter, e.getMessage());
+            MethodHandle fallback = handle(handle, setter);
+            boolean primitive = setter.getParameterTypes()[0].isPrimitive();
+            return (target, value) -> {
+                if (primitive && value == null) {
+                    return;
+                }
+                try {
+                    fallback.invoke(target, value);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Could not write " + setter, t);
+                }
+            };
+        }
+    }
+
+    private static Supplier<Object> constructor(Class<?> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle handle = lookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+            @SuppressWarnings("unchecked")
+            Supplier<Object> supplier = (Supplier<Object>) site.getTarget().invoke();
+            return supplier;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(type.getName() + " needs an accessible no argument constructor", e);
+        }
+    }
+
+    private static MethodHandle handle(MethodHandle handle, Method method) {
+        if (handle != null) {
+            return handle;
+        }
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Can not access " + method, e);
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        return Void.class;
+    }
+
+    public Class<T> getDoClass() {
+        return doClass;
+    }
+
+    public Class<E> getEntityClass() {
+        return entityClass;
+    }
+}
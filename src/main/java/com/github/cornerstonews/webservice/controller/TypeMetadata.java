@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.EmbeddedId;
+import javax.persistence.Id;
+import javax.persistence.Version;
+
+/*
+ * Per type metadata, computed once per class and cached in a ClassValue so request paths only do a lookup.
+ *  - displayName: simple class name without a trailing DO, used in log messages
+ *  - id: the single @Id / @EmbeddedId field or getter, null when there is none or the key is composite (@IdClass)
+ *  - version: the @Version field or getter, null when the type is not versioned
+ *  - getters: public no argument getters by bean property name
+ *  - setters: public setters taking the type of the getter, by bean property name
+ */
+final class TypeMetadata {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private static final ClassValue<TypeMetadata> METADATA = new ClassValue<TypeMetadata>() {
+        @Override
+        protected TypeMetadata computeValue(Class<?> type) {
+            return new TypeMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final String displayName;
+    private final AccessibleObject id;
+    private final AccessibleObject version;
+    private final Map<String, Method> getters;
+    private final Map<String, Method> setters;
+
+    private TypeMetadata(Class<?> type) {
+        this.type = type;
+        this.displayName = displayName(type.getSimpleName());
+        this.id = findMember(type, true);
+        this.version = findMember(type, false);
+        this.getters = findGetters(type);
+        this.setters = findSetters(type, getters);
+    }
+
+    static TypeMetadata of(Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    String getDisplayName() {
+        return displayName;
+    }
+
+    /*
+     * Property name of the id, null when there is no single id member.
+     */
+    String getIdName() {
+        if (id == null) {
+            return null;
+        }
+        return id instanceof Field ? ((Field) id).getName() : propertyName(((Method) id).getName());
+    }
+
+    Class<?> getIdType() {
+        if (id == null) {
+            return null;
+        }
+        return id instanceof Field ? ((Field) id).getType() : ((Method) id).getReturnType();
+    }
+
+    /*
+     * Property name of the version, null when the type is not versioned.
+     */
+    String getVersionName() {
+        if (version == null) {
+            return null;
+        }
+        return version instanceof Field ? ((Field) version).getName() : propertyName(((Method) version).getName());
+    }
+
+    /*
+     * Value of the id of the given instance, null when the type has no single id member.
+     */
+    Object getId(Object instance) {
+        return read(id, instance);
+    }
+
+    /*
+     * Public getters by bean property name.
+     */
+    Map<String, Method> getGetters() {
+        return getters;
+    }
+
+    /*
+     * Public setters by bean property name, see getSetter().
+     */
+    Map<String, Method> getSetters() {
+        return setters;
+    }
+
+    /*
+     * Public getter of the given bean property, null when there is none.
+     */
+    Method getGetter(String property) {
+        return property == null ? null : getters.get(property);
+    }
+
+    /*
+     * Public setter of the given bean property, null when there is none or it does not take the type of the getter.
+     */
+    Method getSetter(String property) {
+        return property == null ? null : setters.get(property);
+    }
+
+    boolean isVersioned() {
+        return version != null;
+    }
+
+    Object getVersion(Object instance) {
+        return read(version, instance);
+    }
+
+    /*
+     * Getter of this (DO) type for the id property of the given entity type, null when there is none of the same type.
+     */
+    Method getIdGetter(TypeMetadata entity) {
+        String idName = entity.getIdName();
+        Method getter = idName == null ? null : getters.get(idName);
+        if (getter == null || MethodType.methodType(getter.getReturnType()).wrap().returnType() != MethodType.methodType(entity.getIdType()).wrap().returnType()) {
+            return null;
+        }
+        return getter;
+    }
+
+    Object read(AccessibleObject member, Object instance) {
+        if (member == null) {
+            return null;
+        }
+        try {
+            return member instanceof Field ? ((Field) member).get(instance) : ((Method) member).invoke(instance, NO_ARGUMENTS);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not read " + member + " of " + type.getName(), e);
+        }
+    }
+
+    void write(Method setter, Object instance, Object value) {
+        try {
+            setter.invoke(instance, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not write " + setter + " of " + type.getName(), e);
+        }
+    }
+
+    private static String displayName(String simpleName) {
+        int length = simpleName.length();
+        if (length > 2 && simpleName.regionMatches(true, length - 2, "DO", 0, 2)) {
+            return simpleName.substring(0, length - 2);
+        }
+        return simpleName;
+    }
+
+    private static AccessibleObject findMember(Class<?> type, boolean id) {
+        AccessibleObject found = null;
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (id ? isId(field) : field.isAnnotationPresent(Version.class)) {
+                    if (found != null) {
+                        return null;
+                    }
+                    found = field;
+                }
+            }
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.getParameterCount() == 0 && (id ? isId(method) : method.isAnnotationPresent(Version.class))) {
+                    if (found != null) {
+                        return null;
+                    }
+                    found = method;
+                }
+            }
+        }
+        if (found != null) {
+            found.setAccessible(true);
+        }
+        return found;
+    }
+
+    private static boolean isId(AccessibleObject member) {
+        return member.isAnnotationPresent(Id.class) || member.isAnnotationPresent(EmbeddedId.class);
+    }
+
+    private static Map<String, Method> findGetters(Class<?> type) {
+        Map<String, Method> getters = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            String name = method.getName();
+            boolean getter = name.startsWith("get") && name.length() > 3 && Character.isUpperCase(name.charAt(3)) && method.getReturnType() != void.class;
+            boolean isGetter = name.startsWith("is") && name.length() > 2 && Character.isUpperCase(name.charAt(2)) && method.getReturnType() == boolean.class;
+            if (getter || isGetter) {
+                getters.put(propertyName(name), method);
+            }
+        }
+        return Collections.unmodifiableMap(getters);
+    }
+
+    private static Map<String, Method> findSetters(Class<?> type, Map<String, Method> getters) {
+        Map<String, Method> setters = new HashMap<>();
+        getters.forEach((property, getter) -> {
+            String name = "set" + getter.getName().substring(getter.getName().startsWith("is") ? 2 : 3);
+            try {
+                Method setter = type.getMethod(name, getter.getReturnType());
+                if (!Modifier.isStatic(setter.getModifiers())) {
+                    setters.put(property, setter);
+                }
+            } catch (NoSuchMethodException e) {
+                // read only property
+            }
+        });
+        return Collections.unmodifiableMap(setters);
+    }
+
+    private static String propertyName(String methodName) {
+        String name = methodName.substring(methodName.startsWith("is") ? 2 : 3);
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/*
+ * Declarative unique constraints of an entity, built from its JPA metamodel.
+ *
+ *  For example:
+ *      new UniqueConstraints<Persona>()
+ *          .unique(Persona_.username)
+ *          .unique(Persona_.firstName, Persona_.lastName)
+ *
+ *  All constraints of all given entities are checked with a single query, single attribute constraints with an
+ *  IN clause and composite ones with OR-ed conjunctions. Constraints with a null value are skipped, as in SQL.
+ *  Violations are reported by attribute name (comma joined for composite constraints) with the offending value.
+ *  Matched rows are attributed to candidates by exact value. A row no candidate matches exactly was returned by a
+ *  case insensitive collation, it is attributed to the candidates matching it ignoring case.
+ *
+ *  withNegativeFilter() keeps a bloom filter of every unique value in the table, so the query is skipped when
+ *  none of the values can exist. The filter is loaded once from the table and then only learns about writes
+ *  made through record(), so only enable it when the controller is the single writer of the table and the
+ *  database compares the values the way equals() does (no case insensitive collation).
+ *  The filter lives in the instance, so build the instance once and share it between controller instances,
+ *  like the DoCache. A new instance per request reloads the whole table on every request.
+ */
+public class UniqueConstraints<E> {
+
+    private static final Logger log = LogManager.getLogger(UniqueConstraints.class);
+
+    private static final int FILTER_LOAD_PAGE_SIZE = 10000;
+    private static final Set<Class<?>> FILTERED_TYPES = ConcurrentHashMap.newKeySet();
+
+    private final List<Constraint<E>> constraints = new ArrayList<>();
+    private volatile BloomFilter filter;
+    private volatile boolean filterLoaded;
+    private final AtomicBoolean filterLoading = new AtomicBoolean();
+
+    @SafeVarargs
+    public final UniqueConstraints<E> unique(SingularAttribute<? super E, ?>... attributes) {
+        if (attributes.length == 0) {
+            throw new IllegalArgumentException("A unique constraint needs at least one attribute");
+        }
+        constraints.add(new Constraint<E>(Arrays.<SingularAttribute<? super E, ?>>asList(attributes)));
+        return this;
+    }
+
+    public UniqueConstraints<E> withNegativeFilter(int expectedEntries, double falsePositiveRate) {
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return constraints.isEmpty();
+    }
+
+    /*
+     * Finds violations of the given entity, excluding the row with the given id (null on create).
+     */
+    public Map<String, Object> findViolations(EntityManager em, Class<E> entityClass, E candidate, Object excludeId) {
+        Map<Integer, Map<String, Object>> violations = findViolations(em, entityClass, Arrays.asList(candidate), Arrays.asList(excludeId));
+        return violations.getOrDefault(0, new LinkedHashMap<>());
+    }
+
+    /*
+     * Finds violations of a batch of entities, against the database and against each other, keyed by list index.
+     *  excludeIds holds for each entity the id of its own row (null on create).
+     */
+    public Map<Integer, Map<String, Object>> findViolations(EntityManager em, Class<E> entityClass, List<E> candidates, List<Object> excludeIds) {
+        return findViolations(em, entityClass, candidates, excludeIds, null);
+    }
+
+    /*
+     * Finds violations of the given entity among the constraints using any of the changed attributes only,
+     *  excluding the row with the given id. Constraints untouched by the change can not have become violated.
+     */
+    public Map<String, Object> findViolations(EntityManager em, Class<E> entityClass, E candidate, Object excludeId, Collection<String> changedAttributes) {
+        Map<Integer, Map<String, Object>> violations = findViolations(em, entityClass, Arrays.asList(candidate), Arrays.asList(excludeId), changedAttributes);
+        return violations.getOrDefault(0, new LinkedHashMap<>());
+    }
+
+    /*
+     * Whether any constraint uses one of the given attributes.
+     */
+    public boolean covers(Collection<String> attributes) {
+        for (Constraint<E> constraint : constraints) {
+            if (constraint.uses(attributes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<Integer, Map<String, Object>> findViolations(EntityManager em, Class<E> entityClass, List<E> candidates, List<Object> excludeIds, Collection<String> changedAttributes) {
+        Map<Integer, Map<String, Object>> violations = new HashMap<>();
+        if (constraints.isEmpty() || candidates.isEmpty()) {
+            return violations;
+        }
+        loadFilter(em, entityClass);
+
+        List<List<List<Object>>> keys = new ArrayList<>(candidates.size());
+        List<Map<List<Object>, Integer>> seen = new ArrayList<>(constraints.size());
+        for (int c = 0; c < constraints.size(); c++) {
+            seen.add(new HashMap<>());
+        }
+
+        boolean query = false;
+        for (int i = 0; i < candidates.size(); i++) {
+            List<List<Object>> candidateKeys = new ArrayList<>(constraints.size());
+            for (int c = 0; c < constraints.size(); c++) {
+                Constraint<E> constraint = constraints.get(c);
+                List<Object> key = changedAttributes == null || constraint.uses(changedAttributes) ? constraint.key(candidates.get(i)) : null;
+                candidateKeys.add(key);
+                if (key == null) {
+                    continue;
+                }
+                if (seen.get(c).putIfAbsent(key, i) != null) {
+                    addViolation(violations, i, constraint, key);
+                }
+                query |= !filterLoaded || filter.mightContain(filterKey(c, key));
+            }
+            keys.add(candidateKeys);
+        }
+
+        if (!query) {
+            log.debug("Skipping unique field query, no value of {} candidates can exist", candidates.size());
+            return violations;
+        }
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<E> criteria = cb.createQuery(entityClass);
+        Root<E> root = criteria.from(entityClass);
+        List<Predicate> predicates = new ArrayList<>();
+        for (int c = 0; c < constraints.size(); c++) {
+            Constraint<E> constraint = constraints.get(c);
+            List<List<Object>> constraintKeys = new ArrayList<>(seen.get(c).keySet());
+            if (constraintKeys.isEmpty()) {
+                continue;
+            }
+            if (constraint.attributes.size() == 1) {
+                List<Object> values = new ArrayList<>(constraintKeys.size());
+                constraintKeys.forEach(key -> values.add(key.get(0)));
+                predicates.add(root.get(constraint.attributes.get(0)).in(values));
+            } else {
+                for (List<Object> key : constraintKeys) {
+                    Predicate[] equals = new Predicate[key.size()];
+                    for (int a = 0; a < key.size(); a++) {
+                        equals[a] = cb.equal(root.get(constraint.attributes.get(a)), key.get(a));
+                    }
+                    predicates.add(cb.and(equals));
+                }
+            }
+        }
+        criteria.select(root).where(cb.or(predicates.toArray(new Predicate[0])));
+        List<E> rows = em.createQuery(criteria).getResultList();
+        log.debug("Unique field query for {} candidates matched {} rows", candidates.size(), rows.size());
+
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (E row : rows) {
+            Object rowId = util.getIdentifier(row);
+            for (int c = 0; c < constraints.size(); c++) {
+                Constraint<E> constraint = constraints.get(c);
+                List<Object> rowKey = constraint.key(row);
+                if (rowKey == null) {
+                    continue;
+                }
+                boolean exact = false;
+                for (int i = 0; i < candidates.size(); i++) {
+                    List<Object> key = keys.get(i).get(c);
+                    if (key != null && key.equals(rowKey)) {
+                        exact = true;
+                        if (!Objects.equals(rowId, excludeIds.get(i))) {
+                            addViolation(violations, i, constraint, key);
+                        }
+                    }
+                }
+                if (exact) {
+                    continue;
+                }
+                for (int i = 0; i < candidates.size(); i++) {
+                    List<Object> key = keys.get(i).get(c);
+                    if (key != null && equalsIgnoreCase(key, rowKey) && !Objects.equals(rowId, excludeIds.get(i))) {
+                        addViolation(violations, i, constraint, key);
+                    }
+                }
+            }
+        }
+        return violations;
+    }
+
+    /*
+     * Records the unique values of a successfully written entity in the negative filter.
+     */
+    public void record(E entity) {
+        if (filter == null) {
+            return;
+        }
+        for (int c = 0; c < constraints.size(); c++) {
+            List<Object> key = constraints.get(c).key(entity);
+            if (key != null) {
+                filter.add(filterKey(c, key));
+            }
+        }
+    }
+
+    /*
+     * Loads the unique values of every row with keyset pages ordered by id, selecting the id and constraint columns
+     * only. Requests arriving while the filter loads do not wait for it, they query the database.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void loadFilter(EntityManager em, Class<E> entityClass) {
+        if (filter == null || filterLoaded || !filterLoading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            EntityType<E> entityType = em.getMetamodel().entity(entityClass);
+            if (!entityType.hasSingleIdAttribute() || !Comparable.class.isAssignableFrom(wrap(entityType.getIdType().getJavaType()))) {
+                log.warn("Negative filter of {} disabled, it needs a single comparable id to load the table", entityClass.getSimpleName());
+                filter = null;
+                return;
+            }
+            if (!FILTERED_TYPES.add(entityClass)) {
+                log.warn("Negative filter of {} loaded again by another UniqueConstraints instance, share a single instance between controllers",
+                        entityClass.getSimpleName());
+            }
+            log.info("Loading unique values of {} into negative filter", entityClass.getSimpleName());
+            SingularAttribute<? super E, ?> idAttribute = entityType.getId(entityType.getIdType().getJavaType());
+            List<SingularAttribute<? super E, ?>> columns = new ArrayList<>();
+            for (Constraint<E> constraint : constraints) {
+                for (SingularAttribute<? super E, ?> attribute : constraint.attributes) {
+                    if (!columns.contains(attribute)) {
+                        columns.add(attribute);
+                    }
+                }
+            }
+
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            Comparable last = null;
+            long count = 0;
+            while (true) {
+                CriteriaQuery<Object[]> criteria = cb.createQuery(Object[].class);
+                Root<E> root = criteria.from(entityClass);
+                Path<Comparable> idPath = (Path<Comparable>) (Path) root.get(idAttribute);
+                Selection<?>[] selections = new Selection<?>[columns.size() + 1];
+                selections[0] = idPath;
+                for (int i = 0; i < columns.size(); i++) {
+                    selections[i + 1] = root.get(columns.get(i));
+                }
+                criteria.multiselect(selections).orderBy(cb.asc(idPath));
+                if (last != null) {
+                    criteria.where(cb.greaterThan(idPath, last));
+                }
+                List<Object[]> rows = em.createQuery(criteria).setMaxResults(FILTER_LOAD_PAGE_SIZE).getResultList();
+                for (Object[] row : rows) {
+                    for (int c = 0; c < constraints.size(); c++) {
+                        List<Object> key = constraints.get(c).key(row, columns);
+                        if (key != null) {
+                            filter.add(filterKey(c, key));
+                        }
+                    }
+                }
+                count += rows.size();
+                if (rows.size() < FILTER_LOAD_PAGE_SIZE) {
+                    break;
+                }
+                last = (Comparable) rows.get(rows.size() - 1)[0];
+            }
+            filterLoaded = true;
+            log.info("Loaded unique values of {} rows of {} into negative filter", count, entityClass.getSimpleName());
+        } finally {
+            if (!filterLoaded) {
+                filterLoading.set(false);
+            }
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static List<Object> filterKey(int constraint, List<Object> key) {
+        List<Object> filterKey = new ArrayList<>(key.size() + 1);
+        filterKey.add(constraint);
+        filterKey.addAll(key);
+        return filterKey;
+    }
+
+    /*
+     * Whether the keys are equal, comparing String values ignoring case.
+     */
+    private static boolean equalsIgnoreCase(List<Object> key, List<Object> rowKey) {
+        for (int i = 0; i < key.size(); i++) {
+            Object value = key.get(i);
+            Object rowValue = rowKey.get(i);
+            boolean equal = value instanceof String && rowValue instanceof String ? ((String) value).equalsIgnoreCase((String) rowValue)
+                    : value.equals(rowValue);
+            if (!equal) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <E> void addViolation(Map<Integer, Map<String, Object>> violations, int index, Constraint<E> constraint, List<Object> key) {
+        violations.computeIfAbsent(index, i -> new LinkedHashMap<>()).putIfAbsent(constraint.name, key.size() == 1 ? key.get(0) : key);
+    }
+
+    private static class Constraint<E> {
+        private final List<SingularAttribute<? super E, ?>> attributes;
+        private final String name;
+
+        Constraint(List<SingularAttribute<? super E, ?>> attributes) {
+            this.attributes = attributes;
+            List<String> names = new ArrayList<>(attributes.size());
+            attributes.forEach(attribute -> names.add(attribute.getName()));
+            this.name = String.join(",", names);
+        }
+
+        boolean uses(Collection<String> names) {
+            for (SingularAttribute<? super E, ?> attribute : attributes) {
+                if (names.contains(attribute.getName())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /*
+         * Values of the constraint attributes in a row selected as the given columns (after the id), null when any
+         * of them is null.
+         */
+        List<Object> key(Object[] row, List<SingularAttribute<? super E, ?>> columns) {
+            List<Object> key = new ArrayList<>(attributes.size());
+            for (SingularAttribute<? super E, ?> attribute : attributes) {
+                Object value = row[columns.indexOf(attribute) + 1];
+                if (value == null) {
+                    return null;
+                }
+                key.add(value);
+            }
+            return key;
+        }
+
+        /*
+         * Values of the constraint attributes, null when any of them is null.
+         */
+        List<Object> key(E entity) {
+            List<Object> key = new ArrayList<>(attributes.size());
+            for (SingularAttribute<? super E, ?> attribute : attributes) {
+                Object value = AttributeAccessor.of(attribute).get(entity);
+                if (value == null) {
+                    return null;
+                }
+                key.add(value);
+            }
+            return key;
+        }
+    }
+}
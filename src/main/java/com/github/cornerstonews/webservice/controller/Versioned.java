@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.util.Date;
+
+/*
+ * Validators of an entity together with a deferred conversion to its DO object.
+ *
+ *  Lets callers evaluate conditional requests (ETag / Last-Modified) before paying for convertToDO.
+ *  version and lastModified are null when the entity does not provide them.
+ */
+public class Versioned<T> {
+
+    @FunctionalInterface
+    public interface Converter<T> {
+        T convert() throws Exception;
+    }
+
+    private final String version;
+    private final Date lastModified;
+    private final Converter<T> converter;
+
+    public Versioned(String version, Date lastModified, Converter<T> converter) {
+        this.version = version;
+        this.lastModified = lastModified;
+        this.converter = converter;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public boolean hasValidator() {
+        return version != null || lastModified != null;
+    }
+
+    /*
+     * Converts the entity to its DO object, only call once the response is known to need a body.
+     */
+    public T get() throws Exception {
+        return converter.convert();
+    }
+}
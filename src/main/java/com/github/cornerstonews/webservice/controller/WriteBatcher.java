@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.cornerstonews.webservice.exception.InputValidationException;
+import com.github.cornerstonews.webservice.exception.NonExistingEntityException;
+import com.github.cornerstonews.webservice.exception.StaleEntityException;
+
+/*
+ * Group commit of concurrent single entity writes.
+ *
+ *  post() and put() calls are queued and written by flusher threads in batches through postAll() / putAll(), so
+ *  unique validation is one query and the writes are one transaction per batch. A batch is closed once it holds
+ *  maxBatchSize writes or window has passed since its first write; while a batch commits the next one fills up, so
+ *  batches grow with concurrency. A failing batch is split the way bulk chunks are to isolate the failing writes, and
+ *  every caller blocks until its own write is done and gets its own id or exception, the same as without batching.
+ *
+ *  Requires getEntityManagerFactory() on the controller. Blind updates are not used for batched puts.
+ *  Return an instance from AbstractWsController.getWriteBatcher() to enable it, and shutdown() it with the controller.
+ */
+public class WriteBatcher<T> {
+
+    private static final Logger log = LogManager.getLogger(WriteBatcher.class);
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final AbstractWsController<T, ?> controller;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final BlockingQueue<Write<T>> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> flushers = new ArrayList<>();
+    // Guards running against submit(), no write is queued once shutdown() drained the queue
+    private final Object lock = new Object();
+    private volatile boolean running = true;
+
+    private static class Write<T> {
+        private final Object id;
+        private final T object;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Write(Object id, T object) {
+            this.id = id;
+            this.object = object;
+        }
+
+        boolean isPost() {
+            return id == null;
+        }
+    }
+
+    public WriteBatcher(AbstractWsController<T, ?> controller, int maxBatchSize, Duration window, int flusherThreads) {
+        if (maxBatchSize < 1 || flusherThreads < 1) {
+            throw new IllegalArgumentException("maxBatchSize and flusherThreads must be at least 1");
+        }
+        this.controller = controller;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        for (int i = 0; i < flusherThreads; i++) {
+            Thread flusher = new Thread(this::flush, "write-batcher-" + THREAD_COUNT.incrementAndGet());
+            flusher.setDaemon(true);
+            flusher.start();
+            flushers.add(flusher);
+        }
+    }
+
+    /*
+     * Creates the given object in the next batch, returns its id.
+     */
+    public Object post(T object) throws Exception {
+        return submit(new Write<>(null, object));
+    }
+
+    /*
+     * Updates the entity with the given (already validated) id in the next batch.
+     */
+    public void put(Object id, T object) throws Exception {
+        submit(new Write<>(id, object));
+    }
+
+    public void shutdown() {
+        synchronized (lock) {
+            running = false;
+        }
+        flushers.forEach(Thread::interrupt);
+        Write<T> write;
+        while ((write = queue.poll()) != null) {
+            write.result.completeExceptionally(new IllegalStateException("Write batcher is shut down"));
+        }
+    }
+
+    private Object submit(Write<T> write) throws Exception {
+        synchronized (lock) {
+            if (!running) {
+                throw new IllegalStateException("Write batcher is shut down");
+            }
+            queue.add(write);
+        }
+        try {
+            return write.result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    private void flush() {
+        List<Write<T>> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    Write<T> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                batch.forEach(write -> write.result.completeExceptionally(new IllegalStateException("Write batcher is shut down")));
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                log.error("Write batch of {} failed: {}", batch.size(), e.getMessage(), e);
+                batch.forEach(write -> write.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Write<T>> batch) {
+        List<Write<T>> posts = new ArrayList<>();
+        List<Write<T>> puts = new ArrayList<>();
+        for (Write<T> write : batch) {
+            (write.isPost() ? posts : puts).add(write);
+        }
+        log.debug("Writing batch of {} posts and {} puts", posts.size(), puts.size());
+        if (!posts.isEmpty()) {
+            complete(posts, () -> controller.postAll(objects(posts)));
+        }
+        if (!puts.isEmpty()) {
+            complete(puts, () -> controller.putAll(objects(puts)));
+        }
+    }
+
+    @FunctionalInterface
+    private interface BulkWrite {
+        List<BulkResult> execute() throws Exception;
+    }
+
+    private void complete(List<Write<T>> writes, BulkWrite bulkWrite) {
+        List<BulkResult> results;
+        try {
+            results = bulkWrite.execute();
+        } catch (Exception e) {
+            writes.forEach(write -> write.result.completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < writes.size(); i++) {
+            BulkResult result = results.get(i);
+            if (result.isSuccess()) {
+                writes.get(i).result.complete(result.getId());
+            } else {
+                writes.get(i).result.completeExceptionally(toException(result));
+            }
+        }
+    }
+
+    private List<T> objects(List<Write<T>> writes) {
+        List<T> objects = new ArrayList<>(writes.size());
+        writes.forEach(write -> objects.add(write.object));
+        return objects;
+    }
+
+    private static Exception toException(BulkResult result) {
+        if (result.cause() != null) {
+            return result.cause();
+        } else if (result.getStatus() == Status.NOT_FOUND.getStatusCode()) {
+            return new NonExistingEntityException(result.getError());
+        } else if (result.getStatus() == Status.CONFLICT.getStatusCode()) {
+            return new StaleEntityException(result.getError());
+        } else if (result.getStatus() == Status.BAD_REQUEST.getStatusCode()) {
+            return new InputValidationException(result.getError());
+        }
+        return new IllegalStateException(result.getError());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/*
+ * Preconditions of a conditional write (RFC 7232), checked by the controller against the current row.
+ *  - ifMatch: If-Match header, '*' or a list of entity tags; entities without a version only match '*'
+ *  - ifUnmodifiedSince: If-Unmodified-Since, only evaluated without If-Match and when the entity has a last
+ *    modification time
+ */
+public class WriteCondition {
+
+    private final String ifMatch;
+    private final Date ifUnmodifiedSince;
+
+    public WriteCondition(String ifMatch, Date ifUnmodifiedSince) {
+        this.ifMatch = ifMatch;
+        this.ifUnmodifiedSince = ifUnmodifiedSince;
+    }
+
+    /*
+     * Condition of the given header values, null when there is nothing to check. Invalid dates are ignored.
+     */
+    public static WriteCondition of(String ifMatch, String ifUnmodifiedSince) {
+        Date since = null;
+        if (ifUnmodifiedSince != null) {
+            try {
+                since = Date.from(ZonedDateTime.parse(ifUnmodifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+            } catch (DateTimeParseException e) {
+                // invalid dates are ignored
+            }
+        }
+        return ifMatch == null && since == null ? null : new WriteCondition(ifMatch, since);
+    }
+
+    public String getIfMatch() {
+        return ifMatch;
+    }
+
+    public Date getIfUnmodifiedSince() {
+        return ifUnmodifiedSince;
+    }
+
+    public boolean test(String version, Date lastModified) {
+        if (ifMatch != null) {
+            return matches(version);
+        }
+        return ifUnmodifiedSince == null || lastModified == null || lastModified.getTime() / 1000 <= ifUnmodifiedSince.getTime() / 1000;
+    }
+
+    private boolean matches(String version) {
+        if ("*".equals(ifMatch.trim())) {
+            return true;
+        }
+        if (version == null) {
+            return false;
+        }
+        String current = '"' + version + '"';
+        for (String tag : ifMatch.split(",")) {
+            if (tag.trim().equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "WriteCondition [ifMatch=" + ifMatch + ", ifUnmodifiedSince=" + ifUnmodifiedSince + "]";
+    }
+}
@@ -16,11 +16,28 @@
  */
 package com.github.cornerstonews.webservice.controller;
 
+import java.util.List;
+import java.util.Map;
+
 public interface WsController<T> {
 
     public Object post(T entity) throws Exception;
     public T get(Object id) throws Exception;
+    public T get(Object id, FetchPlan plan) throws Exception;
+    public Versioned<T> getVersioned(Object id) throws Exception;
+    public Versioned<T> getVersioned(Object id, FetchPlan plan) throws Exception;
+    public Page<T> list(String cursor, int limit, Map<String, String> filters) throws Exception;
     public void put(Object id, T entity) throws Exception;
+    public void put(Object id, T entity, WriteCondition condition) throws Exception;
+    public void patch(Object id, Map<String, Object> patch) throws Exception;
+    public void patch(Object id, Map<String, Object> patch, WriteCondition condition) throws Exception;
     public void delete(Object id) throws Exception;
+    public void delete(Object id, WriteCondition condition) throws Exception;
+
+    public List<BulkResult> postAll(List<T> entities) throws Exception;
+    public List<BulkResult> putAll(List<T> entities) throws Exception;
+    public List<BulkResult> deleteAll(List<Object> ids) throws Exception;
+
+    public ChangeFeed<T> getChangeFeed();
 
 }
@@ -38,4 +38,12 @@ public class NonExistingEntityException extends Exception {
     protected NonExistingEntityException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
     }
+
+    /*
+     * Exception without stack trace and suppression, for expected errors on hot paths where fillInStackTrace() is the
+     * dominant cost.
+     */
+    public static NonExistingEntityException stackless(String message) {
+        return new NonExistingEntityException(message, null, false, false);
+    }
 }
\ No newline at end of file
@@ -38,4 +38,12 @@ public class PreExistingEntityException extends Exception {
     protected PreExistingEntityException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
     }
+
+    /*
+     * Exception without stack trace and suppression, for expected errors on hot paths where fillInStackTrace() is the
+     * dominant cost.
+     */
+    public static PreExistingEntityException stackless(String message) {
+        return new PreExistingEntityException(message, null, false, false);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.exception;
+
+public class StaleEntityException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public StaleEntityException() {
+        super();
+    }
+
+    public StaleEntityException(String message) {
+        super(message);
+    }
+
+    public StaleEntityException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public StaleEntityException(Throwable cause) {
+        super(cause);
+    }
+
+    protected StaleEntityException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+    /*
+     * Exception without stack trace and suppression, for expected errors on hot paths where fillInStackTrace() is the
+     * dominant cost.
+     */
+    public static StaleEntityException stackless(String message) {
+        return new StaleEntityException(message, null, false, false);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.metrics;
+
+/*
+ * Failed operations counted by cause.
+ *  - NOT_FOUND: 404, entity does not exist
+ *  - CONFLICT: 409 / 412, entity already exists, was modified concurrently or does not match the request preconditions
+ *  - VALIDATION: 400, invalid input or unique field violation
+ *  - ERROR: anything else
+ */
+public enum Failure {
+    NOT_FOUND, CONFLICT, VALIDATION, ERROR
+}
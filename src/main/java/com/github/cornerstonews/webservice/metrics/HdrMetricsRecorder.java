@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/*
+ * MetricsRecorder backed by HdrHistogram recorders (wait free, allocation free recording) and LongAdders.
+ */
+public class HdrMetricsRecorder implements MetricsRecorder {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Timer[] operations = new Timer[Operation.values().length];
+    private final Timer[] stages = new Timer[Stage.values().length];
+    private final LongAdder[] inFlight = new LongAdder[Operation.values().length];
+    // by operation, then by failure
+    private final LongAdder[][] failures = new LongAdder[Operation.values().length][Failure.values().length];
+
+    public HdrMetricsRecorder() {
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new Timer();
+            inFlight[i] = new LongAdder();
+            for (int f = 0; f < failures[i].length; f++) {
+                failures[i][f] = new LongAdder();
+            }
+        }
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new Timer();
+        }
+    }
+
+    @Override
+    public void started(Operation operation) {
+        inFlight[operation.ordinal()].increment();
+    }
+
+    @Override
+    public void finished(Operation operation, long nanos) {
+        inFlight[operation.ordinal()].decrement();
+        operations[operation.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void failed(Operation operation, Failure failure) {
+        failures[operation.ordinal()][failure.ordinal()].increment();
+    }
+
+    @Override
+    public void record(Stage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    /*
+     * Failures are reported per operation and, summed over all operations, per failure.
+     */
+    public Map<String, Object> snapshot() {
+        long[] failureTotals = new long[Failure.values().length];
+        Map<String, Object> operationValues = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            Map<String, Object> values = operations[operation.ordinal()].snapshot();
+            values.put("inFlight", inFlight[operation.ordinal()].sum());
+            Map<String, Object> operationFailures = new LinkedHashMap<>();
+            for (Failure failure : Failure.values()) {
+                long count = failures[operation.ordinal()][failure.ordinal()].sum();
+                operationFailures.put(failure.name(), count);
+                failureTotals[failure.ordinal()] += count;
+            }
+            values.put("failures", operationFailures);
+            operationValues.put(operation.name(), values);
+        }
+        Map<String, Object> stageValues = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            stageValues.put(stage.name(), stages[stage.ordinal()].snapshot());
+        }
+        Map<String, Object> failureValues = new LinkedHashMap<>();
+        for (Failure failure : Failure.values()) {
+            failureValues.put(failure.name(), failureTotals[failure.ordinal()]);
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("operations", operationValues);
+        snapshot.put("stages", stageValues);
+        snapshot.put("failures", failureValues);
+        return snapshot;
+    }
+
+    /*
+     * Latency histogram, recorded into a Recorder and folded into a cumulative histogram when read.
+     */
+    private static class Timer {
+        private final Recorder recorder = new Recorder(MAX_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(MAX_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        private Histogram interval;
+
+        void record(long nanos) {
+            recorder.recordValue(Math.max(0, Math.min(nanos, MAX_TRACKABLE_NANOS)));
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            interval = recorder.getIntervalHistogram(interval);
+            total.add(interval);
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", total.getTotalCount());
+            values.put("meanMicros", total.getMean() / 1000);
+            values.put("p50Micros", total.getValueAtPercentile(50) / 1000);
+            values.put("p90Micros", total.getValueAtPercentile(90) / 1000);
+            values.put("p99Micros", total.getValueAtPercentile(99) / 1000);
+            values.put("p999Micros", total.getValueAtPercentile(99.9) / 1000);
+            values.put("maxMicros", total.getMaxValue() / 1000);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * In memory MetricsRegistry of HdrMetricsRecorder instances, one per entity type.
+ */
+public class HdrMetricsRegistry implements MetricsRegistry {
+
+    private final ConcurrentMap<String, HdrMetricsRecorder> recorders = new ConcurrentHashMap<>();
+
+    @Override
+    public MetricsRecorder recorder(String type) {
+        return recorders.computeIfAbsent(type, t -> new HdrMetricsRecorder());
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        recorders.forEach((type, recorder) -> snapshot.put(type, recorder.snapshot()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.metrics;
+
+/*
+ * Receives the measurements of one controller (entity type) from the request path.
+ *
+ *  Called on every request, so implementations must be lock free and should not allocate.
+ *  The shape matches Micrometer (Timer.record(nanos), Counter.increment(), gauges), so a Micrometer backed
+ *  implementation is a thin delegation.
+ */
+public interface MetricsRecorder {
+
+    MetricsRecorder NOOP = new MetricsRecorder() {
+        @Override
+        public void started(Operation operation) {
+        }
+
+        @Override
+        public void finished(Operation operation, long nanos) {
+        }
+
+        @Override
+        public void failed(Operation operation, Failure failure) {
+        }
+
+        @Override
+        public void record(Stage stage, long nanos) {
+        }
+    };
+
+    /*
+     * An operation started, increments its in flight gauge.
+     */
+    void started(Operation operation);
+
+    /*
+     * An operation finished, successfully or not, after the given time. Decrements its in flight gauge.
+     */
+    void finished(Operation operation, long nanos);
+
+    void failed(Operation operation, Failure failure);
+
+    void record(Stage stage, long nanos);
+}
@@ -0,0 +1,28 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.metrics;
+
+/*
+ * Stages of a controller operation timed on their own.
+ *  - VALIDATE_EXISTING: primary key lookup of the entity
+ *  - VALIDATE_UNIQUE: unique field validation
+ *  - CONVERT: DO to entity or entity to DO conversion
+ *  - PERSIST: JpaController create / update / delete
+ */
+public enum Stage {
+    VALIDATE_EXISTING, VALIDATE_UNIQUE, CONVERT, PERSIST
+}
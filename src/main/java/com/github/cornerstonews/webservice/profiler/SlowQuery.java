@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.profiler;
+
+import java.util.Date;
+
+/*
+ * A statement captured by SlowQueryProfiler.
+ *  - sql: statement text, with the bind parameters inlined when parameter capture is enabled
+ *  - query: name of the JPA / EclipseLink query, if any
+ *  - entity: reference class of the query, if any
+ *  - elapsedMillis: execution time including result building
+ *  - executed: time the statement finished
+ */
+public class SlowQuery {
+
+    private String sql;
+    private String query;
+    private String entity;
+    private double elapsedMillis;
+    private Date executed;
+
+    public SlowQuery() {
+    }
+
+    public SlowQuery(String sql, String query, String entity, double elapsedMillis, Date executed) {
+        this.sql = sql;
+        this.query = query;
+        this.entity = entity;
+        this.elapsedMillis = elapsedMillis;
+        this.executed = executed;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(double elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Date getExecuted() {
+        return executed;
+    }
+
+    public void setExecuted(Date executed) {
+        this.executed = executed;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowQuery [elapsedMillis=" + elapsedMillis + ", query=" + query + ", entity=" + entity + ", sql=" + sql + "]";
+    }
+}
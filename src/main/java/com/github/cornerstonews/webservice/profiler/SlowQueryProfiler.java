@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.profiler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.persistence.internal.sessions.AbstractRecord;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.Record;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.sessions.SessionProfilerAdapter;
+
+/*
+ * EclipseLink profiler keeping the slowest statements, an alternative to FINE SQL logging of everything.
+ *
+ *  - thresholdMillis: statements faster than this are ignored
+ *  - sampleRate: fraction (0..1] of queries that are timed at all, the others run untouched
+ *  - capacity: number of slowest statements retained, faster ones are dropped once full
+ *  - captureParameters: inline bind parameters in the captured SQL, they may hold personal data
+ *
+ *  Statement text is only rendered for queries that made it into the buffer, the request path pays for two
+ *  System.nanoTime() calls on sampled queries. Install it with Session.setProfiler(), new client sessions and
+ *  units of work pick it up from the server session.
+ */
+public class SlowQueryProfiler extends SessionProfilerAdapter {
+
+    private static final Logger log = LogManager.getLogger(SlowQueryProfiler.class);
+
+    private static final Comparator<SlowQuery> FASTEST_FIRST = Comparator.comparingDouble(SlowQuery::getElapsedMillis);
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int capacity;
+    private final boolean captureParameters;
+    private final PriorityQueue<SlowQuery> slowest;
+
+    // Fastest retained statement once the buffer is full, lets faster statements skip the lock
+    private volatile long admissionNanos;
+
+    public SlowQueryProfiler(long thresholdMillis, double sampleRate, int capacity, boolean captureParameters) {
+        if (thresholdMillis < 0 || sampleRate <= 0 || sampleRate > 1 || capacity < 1) {
+            throw new IllegalArgumentException("thresholdMillis must be >= 0, sampleRate in (0, 1] and capacity >= 1");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleRate = sampleRate;
+        this.capacity = capacity;
+        this.captureParameters = captureParameters;
+        this.slowest = new PriorityQueue<>(capacity, FASTEST_FIRST);
+        this.admissionNanos = thresholdNanos;
+    }
+
+    @Override
+    public int getProfileWeight() {
+        return SessionProfiler.NORMAL;
+    }
+
+    @Override
+    public Object profileExecutionOfQuery(DatabaseQuery query, Record row, AbstractSession session) {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return session.internalExecuteQuery(query, (AbstractRecord) row);
+        }
+        long start = System.nanoTime();
+        try {
+            return session.internalExecuteQuery(query, (AbstractRecord) row);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= admissionNanos) {
+                capture(query, row, session, elapsed);
+            }
+        }
+    }
+
+    private void capture(DatabaseQuery query, Record row, AbstractSession session, long elapsedNanos) {
+        SlowQuery slow;
+        try {
+            String sql = captureParameters ? query.getTranslatedSQLString(session, row) : query.getSQLString();
+            slow = new SlowQuery(sql, query.getName(), query.getReferenceClassName(), elapsedNanos / 1_000_000d, new Date());
+        } catch (RuntimeException e) {
+            log.debug("Could not render SQL of slow query {}", query, e);
+            slow = new SlowQuery(null, query.getName(), query.getReferenceClassName(), elapsedNanos / 1_000_000d, new Date());
+        }
+        log.debug("Captured slow query {}", slow);
+        synchronized (slowest) {
+            slowest.add(slow);
+            if (slowest.size() > capacity) {
+                slowest.poll();
+            }
+            if (slowest.size() == capacity) {
+                admissionNanos = Math.max(thresholdNanos, (long) (slowest.peek().getElapsedMillis() * 1_000_000d));
+            }
+        }
+    }
+
+    /*
+     * Captured statements, slowest first.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> queries;
+        synchronized (slowest) {
+            queries = new ArrayList<>(slowest);
+        }
+        queries.sort(FASTEST_FIRST.reversed());
+        return queries;
+    }
+
+    public void clear() {
+        synchronized (slowest) {
+            slowest.clear();
+            admissionNanos = thresholdNanos;
+        }
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isCaptureParameters() {
+        return captureParameters;
+    }
+}
@@ -16,67 +16,435 @@
  */
 package com.github.cornerstonews.webservice.resource;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
 import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
+import javax.persistence.PersistenceException;
 import javax.validation.Valid;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
-//import javax.ws.rs.GET;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 
+import org.eclipse.persistence.exceptions.DatabaseException;
+
+import com.github.cornerstonews.webservice.controller.BulkResult;
+import com.github.cornerstonews.webservice.controller.ChangeFeed;
+import com.github.cornerstonews.webservice.controller.FetchPlan;
+import com.github.cornerstonews.webservice.controller.Page;
+import com.github.cornerstonews.webservice.controller.Versioned;
+import com.github.cornerstonews.webservice.controller.WriteCondition;
 import com.github.cornerstonews.webservice.controller.WsController;
-//import com.github.cornerstonews.webservice.util.WSResponse;
 
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 public abstract class AbstractResource<T, E extends WsController<T>> {
 
+    private static final String CURSOR_PARAM = "cursor";
+    private static final String LIMIT_PARAM = "limit";
+    private static final String FIELDS_PARAM = "fields";
+    private static final String EXPAND_PARAM = "expand";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    private static final long RETRY_AFTER_SECONDS = 1;
+    private static final Duration CHANGE_STREAM_HEARTBEAT = Duration.ofSeconds(15);
+
     @Context
     protected Request request;
 
     @Context
     protected UriInfo uri;
 
+    @Context
+    protected HttpHeaders headers;
+
+    @Context
+    protected Providers providers;
+
     protected abstract String getUriPath();
 
     protected abstract E getController();
 
-//    @GET
-//    @Path("{id: [a-zA-Z0-9]+}")
-//    public Response get(@PathParam("id") String id) throws Exception {
-//        return WSResponse.response(request, getController().get(id), Status.OK);
-//    }
+    /*
+     * return AsyncExecution to run write requests off the container thread, or null to run them inline.
+     *  The returned instance should be shared by all instances of the resource.
+     */
+    protected AsyncExecution getAsyncExecution() {
+        return null;
+    }
+
+    /*
+     * return concurrency limit of read requests (list, get) of this resource type, or null for no limit.
+     *  Requests over the limit are rejected with 503 and Retry-After. Share the instance between resource instances.
+     */
+    protected AdaptiveConcurrencyLimit getReadLimit() {
+        return null;
+    }
+
+    /*
+     * return concurrency limit of write requests of this resource type, or null for no limit.
+     */
+    protected AdaptiveConcurrencyLimit getWriteLimit() {
+        return null;
+    }
+
+    /*
+     * return Executor sending change events to clients of changes(). A send may block while the client's connection
+     *  is backed up. Defaults to a pool of daemon threads shared by all change streams.
+     */
+    protected Executor getChangeStreamExecutor() {
+        return ChangeStream.defaultExecutor();
+    }
+
+    /*
+     * Interval of keep-alive comments on idle change streams, which also detect clients that went away.
+     *  null or zero disables them.
+     */
+    protected Duration getChangeStreamHeartbeat() {
+        return CHANGE_STREAM_HEARTBEAT;
+    }
+
+    /*
+     * Streams the committed changes of the collection as server-sent events, see ChangeStream.
+     *  Answers 404 when the controller has no ChangeFeed. Like the bulk paths, the path starts with '_' so it never
+     *  shadows the item of an id.
+     */
+    @GET
+    @Path("_changes")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void changes(@HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId, @Context SseEventSink sink, @Context Sse sse) {
+        ChangeFeed<T> feed = getController().getChangeFeed();
+        if (feed == null) {
+            throw new NotFoundException("No change feed for " + getUriPath());
+        }
+        new ChangeStream<>(feed, sink, sse, getChangeStreamExecutor(), getChangeStreamHeartbeat(), lastEventId).start();
+    }
+
+    /*
+     * Streams one page of the collection as a json array.
+     *  Every query parameter other than cursor and limit is an equality filter on an entity attribute.
+     *  The cursor of the next page is returned in the X-Next-Cursor header and as a 'next' link.
+     */
+    @GET
+    public Response list(@QueryParam(CURSOR_PARAM) String cursor, @QueryParam(LIMIT_PARAM) int limit) throws Exception {
+        Map<String, String> filters = new HashMap<>();
+        MultivaluedMap<String, String> params = uri.getQueryParameters();
+        params.forEach((name, values) -> {
+            if (!CURSOR_PARAM.equals(name) && !LIMIT_PARAM.equals(name) && !values.isEmpty()) {
+                filters.put(name, values.get(0));
+            }
+        });
+
+        Page<T> page = withinLimit(getReadLimit(), () -> getController().list(cursor, limit, filters));
+        StreamingOutput body = output -> writeJsonArray(page.getItems(), output);
+        ResponseBuilder builder = Response.ok(body, MediaType.APPLICATION_JSON);
+        if (page.hasNext()) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            builder.link(uri.getRequestUriBuilder().replaceQueryParam(CURSOR_PARAM, page.getNextCursor()).build(), "next");
+        }
+        return builder.build();
+    }
+
+    /*
+     * fields= and expand= take comma separated attribute and relationship names and limit what is loaded and returned.
+     */
+    @GET
+    @Path("{id: [a-zA-Z0-9]+}")
+    public Response get(@PathParam("id") String id, @QueryParam(FIELDS_PARAM) String fields, @QueryParam(EXPAND_PARAM) String expand) throws Exception {
+        return withinLimit(getReadLimit(), () -> getResponse(id, fields, expand));
+    }
+
+    private Response getResponse(String id, String fields, String expand) throws Exception {
+        FetchPlan plan = FetchPlan.of(fields, expand);
+        Versioned<T> versioned = getController().getVersioned(id, plan);
+        EntityTag tag = toEntityTag(versioned, plan);
+        ResponseBuilder notModified = evaluatePreconditions(versioned, tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        ResponseBuilder builder = Response.ok(versioned.get());
+        if (tag != null) {
+            builder.tag(tag);
+        }
+        if (versioned.getLastModified() != null) {
+            builder.lastModified(versioned.getLastModified());
+        }
+        return builder.build();
+    }
     
+    /*
+     * post, put and delete run the synchronous methods below on the request thread when getAsyncExecution() is null,
+     * so subclasses overriding those keep working. Such overrides must not repeat @POST / @PUT / @DELETE, the resource
+     * methods are the AsyncResponse variants. With an AsyncExecution the work runs on its executor and does not go
+     * through the synchronous methods.
+     */
     @POST
-    public Response post(@Valid T object) throws Exception {
+    public void post(@Valid T object, @Suspended AsyncResponse response) {
+        if (getAsyncExecution() == null) {
+            resume(response, () -> post(object));
+            return;
+        }
+        URI baseUri = uri.getBaseUri();
+        execute(response, () -> create(object, baseUri));
+    }
+
+    public Response post(T object) throws Exception {
+        URI baseUri = uri.getBaseUri();
+        return withinLimit(getWriteLimit(), () -> create(object, baseUri));
+    }
+
+    private Response create(T object, URI baseUri) throws Exception {
         Object id = getController().post(object);
-        
+
         if (id instanceof Integer) {
             id = Integer.toString((int) id);
         }
-        URI location = UriBuilder.fromUri(uri.getBaseUri()).path(this.getUriPath()).path((String) id).build();
+        URI location = UriBuilder.fromUri(baseUri).path(this.getUriPath()).path((String) id).build();
         return Response.created(location).build();
     }
 
     @PUT
     @Path("{id: [a-zA-Z0-9]+}")
-    public Response put(@PathParam("id") String id, @Valid T object) throws Exception {
-        getController().put(id, object);
+    public void put(@PathParam("id") String id, @Valid T object, @Suspended AsyncResponse response) {
+        if (getAsyncExecution() == null) {
+            resume(response, () -> put(id, object));
+            return;
+        }
+        WriteCondition condition = getWriteCondition();
+        execute(response, () -> update(id, object, condition));
+    }
+
+    public Response put(String id, T object) throws Exception {
+        WriteCondition condition = getWriteCondition();
+        return withinLimit(getWriteLimit(), () -> update(id, object, condition));
+    }
+
+    private Response update(String id, T object, WriteCondition condition) throws Exception {
+        getController().put(id, object, condition);
         return Response.noContent().build();
     }
 
+    /*
+     * JSON merge patch (RFC 7386) of the DO object with the given id, only the supplied fields are written.
+     */
+    @PATCH
+    @Path("{id: [a-zA-Z0-9]+}")
+    @Consumes({ MERGE_PATCH_JSON, MediaType.APPLICATION_JSON })
+    public void patch(@PathParam("id") String id, Map<String, Object> patch, @Suspended AsyncResponse response) {
+        WriteCondition condition = getWriteCondition();
+        execute(response, () -> {
+            getController().patch(id, patch, condition);
+            return Response.noContent().build();
+        });
+    }
+
     @DELETE
     @Path("{id: [a-zA-Z0-9]+}")
-    public Response delete(@PathParam("id") String id) throws Exception {
-        getController().delete(id);
+    public void delete(@PathParam("id") String id, @Suspended AsyncResponse response) {
+        if (getAsyncExecution() == null) {
+            resume(response, () -> delete(id));
+            return;
+        }
+        WriteCondition condition = getWriteCondition();
+        execute(response, () -> remove(id, condition));
+    }
+
+    public Response delete(String id) throws Exception {
+        WriteCondition condition = getWriteCondition();
+        return withinLimit(getWriteLimit(), () -> remove(id, condition));
+    }
+
+    private Response remove(String id, WriteCondition condition) throws Exception {
+        getController().delete(id, condition);
         return Response.status(Status.NO_CONTENT).build();
     }
 
+    /*
+     * Bulk paths start with '_', which ids can not contain, so they never shadow the item of an id.
+     */
+    @POST
+    @Path("_bulk")
+    public void postAll(@Valid List<T> objects, @Suspended AsyncResponse response) {
+        execute(response, () -> {
+            List<BulkResult> results = getController().postAll(objects);
+            return Response.ok(results).build();
+        });
+    }
+
+    @PUT
+    @Path("_bulk")
+    public void putAll(@Valid List<T> objects, @Suspended AsyncResponse response) {
+        execute(response, () -> {
+            List<BulkResult> results = getController().putAll(objects);
+            return Response.ok(results).build();
+        });
+    }
+
+    @POST
+    @Path("_bulk/delete")
+    public void deleteAll(List<String> ids, @Suspended AsyncResponse response) {
+        execute(response, () -> {
+            List<BulkResult> results = getController().deleteAll(new ArrayList<Object>(ids));
+            return Response.ok(results).build();
+        });
+    }
+
+    /*
+     * Runs the given work on the AsyncExecution of this resource, or inline on the request thread when there is none.
+     *  Work runs outside of the request scope, so it must not touch injected context (uri, headers, request) directly.
+     */
+    protected void execute(AsyncResponse response, Callable<Response> work) {
+        Callable<Response> limited = () -> withinLimit(getWriteLimit(), work);
+        AsyncExecution async = getAsyncExecution();
+        if (async != null) {
+            async.execute(response, limited);
+        } else {
+            resume(response, limited);
+        }
+    }
+
+    private void resume(AsyncResponse response, Callable<Response> work) {
+        try {
+            response.resume(work.call());
+        } catch (Throwable t) {
+            response.resume(t);
+        }
+    }
+
+    /*
+     * If-Match / If-Unmodified-Since of the current request, read on the request thread.
+     */
+    private WriteCondition getWriteCondition() {
+        return WriteCondition.of(headers.getHeaderString(HttpHeaders.IF_MATCH), headers.getHeaderString(HttpHeaders.IF_UNMODIFIED_SINCE));
+    }
+
+    /*
+     * Runs the work within the given limit, feeding its latency back to the limit.
+     *  Throws ServiceUnavailableException (503 with Retry-After) right away when the limit is reached.
+     *  Failures of the database count as dropped requests, whether the provider wraps them into a PersistenceException
+     *  or throws its own exception (EclipseLink DatabaseException outside of the EntityManager).
+     */
+    protected <R> R withinLimit(AdaptiveConcurrencyLimit limit, Callable<R> work) throws Exception {
+        if (limit == null) {
+            return work.call();
+        }
+        if (!limit.tryAcquire()) {
+            throw new ServiceUnavailableException(RETRY_AFTER_SECONDS);
+        }
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return work.call();
+        } catch (PersistenceException | DatabaseException e) {
+            dropped = true;
+            throw e;
+        } finally {
+            limit.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeJsonArray(Iterable<T> items, OutputStream output) throws IOException {
+        OutputStream item = new FilterOutputStream(output) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+
+        Annotation[] annotations = new Annotation[0];
+        MultivaluedMap<String, Object> httpHeaders = new MultivaluedHashMap<>();
+        Class<T> type = null;
+        MessageBodyWriter<T> writer = null;
+        boolean first = true;
+        output.write('[');
+        for (T object : items) {
+            if (!first) {
+                output.write(',');
+            }
+            first = false;
+            if (object.getClass() != type) {
+                type = (Class<T>) object.getClass();
+                writer = providers.getMessageBodyWriter(type, type, annotations, MediaType.APPLICATION_JSON_TYPE);
+                if (writer == null) {
+                    throw new IOException("No json writer available for " + type.getName());
+                }
+            }
+            writer.writeTo(object, type, type, annotations, MediaType.APPLICATION_JSON_TYPE, httpHeaders, item);
+        }
+        output.write(']');
+        output.flush();
+    }
+
+    private ResponseBuilder evaluatePreconditions(Versioned<T> versioned, EntityTag tag) {
+        Date lastModified = versioned.getLastModified();
+        if (tag != null && lastModified != null) {
+            return request.evaluatePreconditions(lastModified, tag);
+        } else if (tag != null) {
+            return request.evaluatePreconditions(tag);
+        } else if (lastModified != null) {
+            return request.evaluatePreconditions(lastModified);
+        }
+        return null;
+    }
+
+    /*
+     * The version for the full representation, the version with a hash of the plan for partial ones, so a cache
+     * holding one variant is not told it is fresh for another. If-Match on writes takes the tag of the full
+     * representation.
+     */
+    private EntityTag toEntityTag(Versioned<T> versioned, FetchPlan plan) {
+        if (versioned.getVersion() == null) {
+            return null;
+        }
+        if (plan.isAll()) {
+            return new EntityTag(versioned.getVersion());
+        }
+        return new EntityTag(versioned.getVersion() + "-" + Integer.toHexString(plan.getVariant().hashCode()));
+    }
+
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.resource;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Concurrency limit adjusted from the latency of the requests it admits (additive increase, multiplicative decrease).
+ *
+ *  Completed requests are collected in sampling windows of at least window and MIN_WINDOW_SAMPLES requests.
+ *  At the end of each window, the limit changes at most once:
+ *  - decrease: multiplied by backoffRatio when the mean latency of the window is above tolerance x baseline, or a
+ *    request of the window failed with a persistence error
+ *  - increase: by one when at least half of the limit was in use during the window
+ *  - baseline: exponentially weighted mean of the window latencies over about BASELINE_WINDOWS windows, so single
+ *    fast or slow requests do not move it and a permanently slower database becomes the new normal
+ *
+ *  Use one instance for reads and one for writes per resource type, shared by all its resource instances, so a slow
+ *  entity type only sheds its own load.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double DEFAULT_TOLERANCE = 2.0;
+    private static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    private static final Duration DEFAULT_WINDOW = Duration.ofMillis(100);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final int BASELINE_WINDOWS = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by this
+    private double baselineNanos;
+    private long windowStartNanos;
+    private long windowLatencyNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_TOLERANCE, DEFAULT_BACKOFF_RATIO);
+    }
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, tolerance, backoffRatio, DEFAULT_WINDOW);
+    }
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio, Duration window) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit || tolerance < 1 || backoffRatio <= 0 || backoffRatio >= 1
+                || window.isNegative()) {
+            throw new IllegalArgumentException("Requires 1 <= minLimit <= initialLimit <= maxLimit, tolerance >= 1, 0 < backoffRatio < 1 and window >= 0");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.windowNanos = window.toNanos();
+        this.windowStartNanos = System.nanoTime();
+    }
+
+    /*
+     * Takes a slot, false when the limit is reached. Every successful call must be followed by release().
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /*
+     * Returns the slot, with the latency of the request and whether it failed because of overload.
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowLatencyNanos += latencyNanos;
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+            windowDropped |= dropped;
+
+            long now = System.nanoTime();
+            if (windowSamples < MIN_WINDOW_SAMPLES || now - windowStartNanos < windowNanos) {
+                return;
+            }
+            double meanNanos = (double) windowLatencyNanos / windowSamples;
+            if (baselineNanos == 0) {
+                baselineNanos = meanNanos;
+            }
+            if (windowDropped || meanNanos > baselineNanos * tolerance) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+            } else if (windowMaxInFlight * 2 >= limit && limit < maxLimit) {
+                limit++;
+            }
+            baselineNanos += (meanNanos - baselineNanos) / BASELINE_WINDOWS;
+
+            windowStartNanos = now;
+            windowLatencyNanos = 0;
+            windowSamples = 0;
+            windowMaxInFlight = 0;
+            windowDropped = false;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /*
+     * Baseline latency in milliseconds, 0 until the first window completed.
+     */
+    public synchronized double getBaselineMillis() {
+        return baselineNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
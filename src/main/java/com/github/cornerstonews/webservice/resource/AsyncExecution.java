@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.resource;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ConnectionCallback;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/*
+ * Runs resource work off the container request thread.
+ *
+ *  At most maxPending requests are running or waiting at any time, further requests are rejected right away
+ *  with 503. Requests that do not complete within the timeout are answered with 503 and their work is cancelled
+ *  (interrupted), as is the work of clients that disconnect. Work that already started keeps its slot until it
+ *  actually returns, an interrupt does not stop a blocking JDBC call, so slow database calls can not pile up
+ *  beyond maxPending.
+ *  Create one instance per application (or per resource type) and share it between resource instances.
+ */
+public class AsyncExecution {
+
+    private static final Logger log = LogManager.getLogger(AsyncExecution.class);
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    public AsyncExecution(ExecutorService executor, int maxPending, Duration timeout) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxPending);
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /*
+     * Fixed size platform thread pool with a bounded queue.
+     */
+    public static AsyncExecution threadPool(int threads, int queueCapacity, Duration timeout) {
+        return new AsyncExecution(newThreadPool(threads, queueCapacity), threads + queueCapacity, timeout);
+    }
+
+    /*
+     * One virtual thread per request (JDK 21+), at most maxConcurrent in flight.
+     *  Falls back to a platform thread pool of maxConcurrent threads on older JDKs.
+     */
+    public static AsyncExecution virtualThreads(int maxConcurrent, Duration timeout) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return new AsyncExecution(executor, maxConcurrent, timeout);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on this JVM, using a pool of {} platform threads", maxConcurrent);
+            // the permits admit maxConcurrent, the queue only holds tasks cancelled while queued and tasks handed
+            // over while a thread is still returning to the pool
+            return new AsyncExecution(newThreadPool(maxConcurrent, maxConcurrent), maxConcurrent, timeout);
+        }
+    }
+
+    private static ThreadPoolExecutor newThreadPool(int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public void execute(AsyncResponse response, Callable<?> work) {
+        if (!permits.tryAcquire()) {
+            log.debug("Rejecting request, too many requests pending");
+            response.resume(new ServiceUnavailableException(RETRY_AFTER_SECONDS));
+            return;
+        }
+
+        // claimed by the task when it starts, or by cancel while it is still queued; the claimer releases the permit
+        AtomicBoolean claimed = new AtomicBoolean();
+        AtomicReference<Future<?>> future = new AtomicReference<>();
+        Runnable cancel = () -> {
+            Future<?> running = future.get();
+            if (running != null) {
+                running.cancel(true);
+            }
+            if (claimed.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        response.setTimeoutHandler(timedOut -> {
+            log.debug("Request timed out after {} ms, cancelling", timeoutMillis);
+            cancel.run();
+            timedOut.resume(new ServiceUnavailableException(RETRY_AFTER_SECONDS));
+        });
+        response.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        response.register((ConnectionCallback) disconnected -> cancel.run());
+
+        try {
+            future.set(executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    if (!response.isDone()) {
+                        response.resume(work.call());
+                    }
+                } catch (Throwable t) {
+                    response.resume(t);
+                } finally {
+                    permits.release();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            response.resume(new ServiceUnavailableException(RETRY_AFTER_SECONDS));
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
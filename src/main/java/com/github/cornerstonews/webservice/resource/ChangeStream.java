@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.resource;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.cornerstonews.webservice.controller.ChangeEvent;
+import com.github.cornerstonews.webservice.controller.ChangeFeed;
+
+/*
+ * Streams the changes of a ChangeFeed to one server-sent events client.
+ *
+ *  - event ids are '<feed epoch>-<sequence>', a client reconnecting with Last-Event-ID continues after that change
+ *  - event names are the change types (created, updated, deleted), data is the change event as json
+ *  - at most one event is in flight, the next one is only sent once the previous send completed, so a slow client
+ *    holds no thread and never slows down writers
+ *  - a client that fell behind the feed capacity, or resumes from an unknown id, gets a 'reset' event and continues
+ *    from the newest change, it should reload the resources it shows
+ *  - every heartbeat interval without a send in flight a keep-alive comment is sent, so proxies keep idle connections
+ *    open and a client that went away is noticed and unsubscribed without waiting for the next change
+ */
+class ChangeStream<T> {
+
+    private static final Logger log = LogManager.getLogger(ChangeStream.class);
+
+    static final String RESET_EVENT = "reset";
+    private static final String KEEP_ALIVE_COMMENT = "keep-alive";
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /*
+     * Threads are only created on first use, by the holder classes.
+     */
+    private static final class Senders {
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "change-stream-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Heartbeats {
+        static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "change-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final ChangeFeed<T> feed;
+    private final SseEventSink sink;
+    private final Sse sse;
+    private final Executor executor;
+    private final Duration heartbeat;
+    // set while a send step is scheduled or running, a heartbeat only sends while it can set it
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private volatile ScheduledFuture<?> heartbeats;
+    private final Runnable listener = this::schedule;
+    // sequence of the last change sent, written by the single running send step only
+    private volatile long sequence;
+    private boolean reset;
+
+    ChangeStream(ChangeFeed<T> feed, SseEventSink sink, Sse sse, Executor executor, Duration heartbeat, String lastEventId) {
+        this.feed = feed;
+        this.sink = sink;
+        this.sse = sse;
+        this.executor = executor;
+        this.heartbeat = heartbeat;
+        this.sequence = feed.getLastSequence();
+        if (lastEventId != null) {
+            resumeAfter(lastEventId.trim());
+        }
+    }
+
+    private void resumeAfter(String lastEventId) {
+        String prefix = feed.getEpoch() + "-";
+        try {
+            long last = lastEventId.startsWith(prefix) ? Long.parseLong(lastEventId.substring(prefix.length())) : -1;
+            if (last >= 0 && last <= sequence) {
+                sequence = last;
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // unknown ids reset the client
+        }
+        log.debug("Can not resume change stream after '{}', resetting client", lastEventId);
+        reset = true;
+    }
+
+    /*
+     * Executor used when the resource does not provide one: a shared pool of daemon threads growing with the number of
+     * streams sending at the same time, each stream has at most one send in flight.
+     */
+    static Executor defaultExecutor() {
+        return Senders.EXECUTOR;
+    }
+
+    void start() {
+        feed.subscribe(listener);
+        scheduled.set(true);
+        executor.execute(this::sendNext);
+        if (heartbeat != null && !heartbeat.isZero() && !heartbeat.isNegative()) {
+            long period = heartbeat.toMillis();
+            heartbeats = Heartbeats.SCHEDULER.scheduleAtFixedRate(() -> executor.execute(this::sendHeartbeat), period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sendHeartbeat() {
+        if (sink.isClosed()) {
+            stop();
+            return;
+        }
+        if (!scheduled.compareAndSet(false, true)) {
+            // a change is being sent, which keeps the connection alive as well
+            return;
+        }
+        sink.send(sse.newEventBuilder().comment(KEEP_ALIVE_COMMENT).build()).whenComplete((result, error) -> {
+            if (error != null) {
+                log.debug("Change stream closed: {}", error.getMessage());
+                stop();
+                return;
+            }
+            scheduled.set(false);
+            if (feed.getLastSequence() > sequence) {
+                schedule();
+            }
+        });
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::sendNext);
+        }
+    }
+
+    private void sendNext() {
+        if (sink.isClosed()) {
+            stop();
+            return;
+        }
+
+        OutboundSseEvent event;
+        long sent;
+        ChangeEvent<T> change = reset ? null : feed.next(sequence);
+        if (reset || (change != null && change.getSequence() > sequence + 1)) {
+            reset = false;
+            sent = feed.getLastSequence();
+            log.debug("Change stream fell behind at {}, resetting client to {}", sequence, sent);
+            event = sse.newEventBuilder().name(RESET_EVENT).id(toEventId(sent)).data("").build();
+        } else if (change != null) {
+            sent = change.getSequence();
+            event = sse.newEventBuilder()
+                    .name(change.getType().name().toLowerCase())
+                    .id(toEventId(sent))
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(ChangeEvent.class, change)
+                    .build();
+        } else {
+            scheduled.set(false);
+            // a change published after next() returned null found the stream still scheduled
+            if (feed.getLastSequence() > sequence) {
+                schedule();
+            }
+            return;
+        }
+
+        sink.send(event).whenComplete((result, error) -> {
+            if (error != null) {
+                log.debug("Change stream closed: {}", error.getMessage());
+                stop();
+                return;
+            }
+            sequence = sent;
+            executor.execute(this::sendNext);
+        });
+    }
+
+    private void stop() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        feed.unsubscribe(listener);
+        ScheduledFuture<?> scheduledHeartbeats = heartbeats;
+        if (scheduledHeartbeats != null) {
+            scheduledHeartbeats.cancel(false);
+        }
+        if (!sink.isClosed()) {
+            sink.close();
+        }
+    }
+
+    private String toEventId(long sequence) {
+        return feed.getEpoch() + "-" + sequence;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.resource;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import com.github.cornerstonews.webservice.metrics.MetricsRegistry;
+
+//@Path("metrics")
+public class MetricsResource {
+
+    private MetricsRegistry registry;
+
+    public MetricsResource(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @GET
+    public Response getMetrics() {
+        return Response.ok(registry.snapshot()).build();
+    }
+
+    @GET
+    @Path("{type}")
+    public Response getMetrics(@PathParam("type") String type) {
+        Object metrics = registry.snapshot().get(type);
+        if (metrics == null) {
+            return Response.status(Status.NOT_FOUND).build();
+        }
+        return Response.ok(metrics).build();
+    }
+}
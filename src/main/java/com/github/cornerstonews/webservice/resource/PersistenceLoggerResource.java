@@ -16,47 +16,133 @@
  */
 package com.github.cornerstonews.webservice.resource;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.persistence.EntityManagerFactory;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.logging.AbstractSessionLog;
+import org.eclipse.persistence.logging.SessionLog;
+import org.eclipse.persistence.sessions.server.ServerSession;
+
 import com.github.cornerstonews.webservice.exception.InputValidationException;
+import com.github.cornerstonews.webservice.profiler.SlowQuery;
+import com.github.cornerstonews.webservice.profiler.SlowQueryProfiler;
 
+/*
+ * Changes EclipseLink logging of the running persistence unit, effective for the next log statement.
+ *
+ *  - PUT {level}: default log level
+ *  - PUT sql/{level}?logParameters=: level of the SQL category, and optionally whether bind parameters are logged
+ *  - PUT slowQueries?thresholdMillis=&sampleRate=&capacity=&captureParameters=: capture the slowest statements
+ *    instead of logging all of them, see SlowQueryProfiler
+ *  - GET slowQueries: captured statements, slowest first. DELETE slowQueries stops capturing.
+ */
 //@Path("persistenceLogger")
 public class PersistenceLoggerResource {
 
+    private static final Logger log = LogManager.getLogger(PersistenceLoggerResource.class);
+
     private EntityManagerFactory emf;
 
     public PersistenceLoggerResource(EntityManagerFactory emf) {
         this.emf = emf;
     }
+
+    @GET
+    public Response getPersistenceLogLevels() {
+        SessionLog sessionLog = getSessionLog();
+        Map<String, Object> levels = new LinkedHashMap<>();
+        levels.put("level", AbstractSessionLog.translateLoggingLevelToString(getServerSession().getLogLevel()));
+        levels.put("sqlLevel", AbstractSessionLog.translateLoggingLevelToString(sessionLog.getLevel(SessionLog.SQL)));
+        levels.put("logParameters", sessionLog.shouldDisplayData());
+        levels.put("slowQueries", getSlowQueryProfiler() != null);
+        return Response.ok(levels).build();
+    }
     
     @PUT
     @Path("{level}")
     public Response setPersistenceLogLevel(@PathParam("level") String level) {
-        Map<String, Object> props = emf.getProperties();
-        props.put("eclipselink.logging.level", getValidLogLevel(level));
-        // TODO: Figure out how to replace already created emf so all new requests uses that.
+        String validLevel = getValidLogLevel(level);
+        // through the session, so client sessions sharing its log pick the level up as well
+        getServerSession().setLogLevel(AbstractSessionLog.translateStringToLoggingLevel(validLevel));
+        log.info("Persistence log level set to {}", validLevel);
         return Response.ok().build();
     }
     
     @PUT
     @Path("sql/{level}")
     public Response setPersistenceSqlLogLevel(@PathParam("level") String level, @QueryParam("logParameters") Boolean logParameters) {
-        Map<String, Object> props = emf.getProperties();
-        props.put("eclipselink.logging.level.sql", getValidLogLevel(level));
-        if(logParameters) {
-            props.put("eclipselink.logging.parameters", true);
+        String validLevel = getValidLogLevel(level);
+        SessionLog sessionLog = getSessionLog();
+        sessionLog.setLevel(AbstractSessionLog.translateStringToLoggingLevel(validLevel), SessionLog.SQL);
+        if (logParameters != null) {
+            sessionLog.setShouldDisplayData(logParameters);
+        }
+        log.info("Persistence SQL log level set to {}, logging parameters: {}", validLevel, sessionLog.shouldDisplayData());
+        return Response.ok().build();
+    }
+
+    @PUT
+    @Path("slowQueries")
+    public Response enableSlowQueryCapture(@QueryParam("thresholdMillis") @DefaultValue("100") long thresholdMillis,
+            @QueryParam("sampleRate") @DefaultValue("1.0") double sampleRate,
+            @QueryParam("capacity") @DefaultValue("50") int capacity,
+            @QueryParam("captureParameters") @DefaultValue("false") boolean captureParameters) {
+        SlowQueryProfiler profiler;
+        try {
+            profiler = new SlowQueryProfiler(thresholdMillis, sampleRate, capacity, captureParameters);
+        } catch (IllegalArgumentException e) {
+            throw new InputValidationException(e.getMessage());
         }
-        
-        // TODO: Figure out how to replace already created emf so all new requests uses that.
+        getServerSession().setProfiler(profiler);
+        log.info("Capturing the {} slowest queries over {} ms, sampling {} of queries", capacity, thresholdMillis, sampleRate);
         return Response.ok().build();
     }
+
+    @GET
+    @Path("slowQueries")
+    public Response getSlowQueries() {
+        SlowQueryProfiler profiler = getSlowQueryProfiler();
+        List<SlowQuery> queries = profiler == null ? Collections.emptyList() : profiler.getSlowQueries();
+        return Response.ok(queries).build();
+    }
+
+    @DELETE
+    @Path("slowQueries")
+    public Response disableSlowQueryCapture() {
+        if (getSlowQueryProfiler() != null) {
+            getServerSession().setProfiler(null);
+            log.info("Stopped capturing slow queries");
+        }
+        return Response.ok().build();
+    }
+
+    private SlowQueryProfiler getSlowQueryProfiler() {
+        Object profiler = getServerSession().getProfiler();
+        return profiler instanceof SlowQueryProfiler ? (SlowQueryProfiler) profiler : null;
+    }
+
+    private ServerSession getServerSession() {
+        return JpaHelper.getServerSession(emf);
+    }
+
+    private SessionLog getSessionLog() {
+        return getServerSession().getSessionLog();
+    }
     
     private String getValidLogLevel(String level) {
         switch (level.toUpperCase()) {
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Object> singleFlight = new SingleFlight<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        Object value = new Object();
+        CompletableFuture<Object> first = call(1, () -> {
+            loading.countDown();
+            release.await();
+            return value;
+        });
+        loading.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Object> second = callWhileLoading(1, Object::new);
+
+        assertSame(value, first.get(5, TimeUnit.SECONDS));
+        assertSame(value, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void concurrentCallersShareTheFailure() throws Exception {
+        IllegalStateException failure = new IllegalStateException("load failed");
+        CompletableFuture<Object> first = call(1, () -> {
+            loading.countDown();
+            release.await();
+            throw failure;
+        });
+        loading.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Object> second = callWhileLoading(1, Object::new);
+
+        assertSame(failure, first.handle((result, error) -> error).get(5, TimeUnit.SECONDS));
+        assertSame(failure, second.handle((result, error) -> error).get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void completedLoadsAreNotKept() throws Exception {
+        assertEquals("a", singleFlight.execute(1, () -> "a"));
+        assertEquals("b", singleFlight.execute(1, () -> "b"));
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void differentKeysLoadSeparately() throws Exception {
+        assertEquals("a", singleFlight.execute(1, () -> "a"));
+        assertEquals("b", singleFlight.execute(2, () -> "b"));
+    }
+
+    /*
+     * Runs execute() on its own thread, counting the loads it runs.
+     */
+    private CompletableFuture<Object> call(Object key, Callable<Object> load) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(singleFlight.execute(key, () -> {
+                    loads.incrementAndGet();
+                    return load.call();
+                }));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        return result;
+    }
+
+    /*
+     * call() that returns once the caller waits for the load in flight, then lets that load complete.
+     */
+    private CompletableFuture<Object> callWhileLoading(Object key, Callable<Object> load) throws InterruptedException {
+        CompletableFuture<Object> result = call(key, load);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!hasWaitingCaller() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        return result;
+    }
+
+    private static boolean hasWaitingCaller() {
+        for (StackTraceElement[] stack : Thread.getAllStackTraces().values()) {
+            for (StackTraceElement frame : stack) {
+                if (frame.getClassName().equals(SingleFlight.class.getName()) && frame.getMethodName().equals("await")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.webservice.exception.InputValidationException;
+
+class AttributeValuesTest {
+
+    enum Color {
+        RED, GREEN
+    }
+
+    @Test
+    void valuesOfTheTypeAreReturnedAsIs() {
+        Long value = 42L;
+        assertSame(value, AttributeValues.convert("id", Long.class, value));
+        assertNull(AttributeValues.convert("id", Long.class, null));
+    }
+
+    @Test
+    void convertsTextAndNumbers() {
+        assertEquals(42, AttributeValues.convert("quantity", int.class, " 42 "));
+        assertEquals(42L, AttributeValues.convert("id", Long.class, 42));
+        assertEquals(1.5, AttributeValues.convert("price", double.class, "1.5"));
+        assertEquals(new BigDecimal("9.99"), AttributeValues.convert("price", BigDecimal.class, "9.99"));
+        assertEquals(Boolean.TRUE, AttributeValues.convert("active", boolean.class, "TRUE"));
+        assertEquals('x', AttributeValues.convert("flag", char.class, "x"));
+        assertEquals("42", AttributeValues.convert("name", String.class, 42));
+        assertEquals(Color.GREEN, AttributeValues.convert("color", Color.class, "GREEN"));
+        UUID uuid = UUID.randomUUID();
+        assertEquals(uuid, AttributeValues.convert("key", UUID.class, uuid.toString()));
+    }
+
+    @Test
+    void convertsDatesFromIsoTextAndEpochMillis() {
+        Instant instant = Instant.parse("2024-01-02T03:04:05Z");
+        assertEquals(Date.from(instant), AttributeValues.convert("created", Date.class, "2024-01-02T03:04:05Z"));
+        assertEquals(Date.from(instant), AttributeValues.convert("created", Date.class, instant.toEpochMilli()));
+        assertEquals(instant, AttributeValues.convert("created", Instant.class, instant.toEpochMilli()));
+        assertEquals(LocalDate.of(2024, 1, 2), AttributeValues.convert("day", LocalDate.class, "2024-01-02"));
+    }
+
+    @Test
+    void invalidValuesAreInputErrors() {
+        assertThrows(InputValidationException.class, () -> AttributeValues.convert("quantity", int.class, "many"));
+        assertThrows(InputValidationException.class, () -> AttributeValues.convert("active", Boolean.class, "yes"));
+        assertThrows(InputValidationException.class, () -> AttributeValues.convert("flag", char.class, "xy"));
+        assertThrows(InputValidationException.class, () -> AttributeValues.convert("color", Color.class, "BLUE"));
+        assertThrows(InputValidationException.class, () -> AttributeValues.convert("created", Date.class, "yesterday"));
+    }
+
+    @Test
+    void unsupportedTypesAreInputErrors() {
+        assertThrows(InputValidationException.class, () -> AttributeValues.convert("tags", List.class, "a,b"));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.webservice.controller.Items.Item;
+import com.github.cornerstonews.webservice.controller.Items.ItemDO;
+import com.github.cornerstonews.webservice.exception.NonExistingEntityException;
+import com.github.cornerstonews.webservice.exception.StaleEntityException;
+
+/*
+ * put() of a versioned DO object with isBlindUpdateEnabled() updates the row by id and version without loading it.
+ */
+class BlindUpdateTest {
+
+    private final InMemoryDatabase<Item> db = new InMemoryDatabase<>(Item.class);
+    private final ItemController controller = new ItemController(db) {
+        @Override
+        protected boolean isBlindUpdateEnabled() {
+            return true;
+        }
+    };
+
+    private static ItemDO update(Long id, long version) {
+        ItemDO object = new ItemDO(id, "gadget", 5);
+        object.setVersion(version);
+        return object;
+    }
+
+    @Test
+    void currentVersionUpdatesTheRow() throws Exception {
+        Long id = db.insert(Items.item("widget", 3, "red")).getId();
+
+        controller.put(id, update(id, 1));
+
+        Item updated = db.find(id);
+        assertEquals("gadget", updated.getName());
+        assertEquals(5, updated.getQuantity());
+        assertEquals(2L, updated.getVersion());
+        // only the columns of the row are written, relationships are left alone
+        assertEquals(1, updated.getTags().size());
+    }
+
+    @Test
+    void staleVersionIsRejected() throws Exception {
+        Long id = db.insert(Items.item("widget", 3)).getId();
+
+        assertThrows(StaleEntityException.class, () -> controller.put(id, update(id, 7)));
+        assertEquals("widget", db.find(id).getName());
+        assertEquals(1L, db.find(id).getVersion());
+    }
+
+    @Test
+    void missingRowIsNotFound() {
+        assertThrows(NonExistingEntityException.class, () -> controller.put(42L, update(42L, 1)));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    private static final int ENTRIES = 10000;
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.add("value-" + i);
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(filter.mightContain("value-" + i), "value-" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsNearTheTarget() {
+        BloomFilter filter = new BloomFilter(ENTRIES, 0.01);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.add(i);
+        }
+        int falsePositives = 0;
+        for (int i = ENTRIES; i < ENTRIES * 11; i++) {
+            if (filter.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / (ENTRIES * 10);
+        assertTrue(rate < 0.03, "false positive rate " + rate);
+    }
+
+    @Test
+    void findsKeysByValue() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        filter.add(Arrays.asList(0, "alice"));
+        assertTrue(filter.mightContain(Arrays.asList(0, "alice")));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.PersistenceException;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.webservice.controller.Items.Item;
+import com.github.cornerstonews.webservice.controller.Items.ItemDO;
+
+/*
+ * Bulk writes commit in chunks and isolate the items a chunk failed on.
+ */
+class BulkWriteTest {
+
+    private static List<ItemDO> items(int count, int... unnamed) {
+        List<ItemDO> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new ItemDO(null, "item-" + i, i));
+        }
+        for (int i : unnamed) {
+            items.get(i).setName(null);
+        }
+        return items;
+    }
+
+    @Test
+    void failingItemsAreIsolatedWhenTheyFailTheSameWay() throws Exception {
+        InMemoryDatabase<Item> db = new InMemoryDatabase<>(Item.class);
+        db.reject(item -> item.getName() == null, "NOT NULL constraint failed: ITEM.NAME");
+
+        List<BulkResult> results = new ItemController(db).postAll(items(8, 2, 5));
+
+        for (int i = 0; i < results.size(); i++) {
+            BulkResult result = results.get(i);
+            if (i == 2 || i == 5) {
+                assertFalse(result.isSuccess(), result.toString());
+                assertEquals(500, result.getStatus());
+            } else {
+                assertTrue(result.isSuccess(), result.toString());
+                assertEquals(201, result.getStatus());
+                assertEquals("item-" + i, db.find(result.getId()).getName());
+            }
+        }
+        assertEquals(6, db.size());
+    }
+
+    @Test
+    void connectionFailuresAreNotBisected() throws Exception {
+        InMemoryDatabase<Item> db = new InMemoryDatabase<>(Item.class);
+        db.fail(new PersistenceException(new SQLTransientConnectionException("Connection refused", "08001")));
+
+        List<BulkResult> results = new ItemController(db).postAll(items(8));
+
+        results.forEach(result -> assertEquals(500, result.getStatus()));
+        assertEquals(1, db.getTransactions());
+    }
+
+    @Test
+    void batchedPostsCommitAndShutdownRejectsNewWrites() throws Exception {
+        InMemoryDatabase<Item> db = new InMemoryDatabase<>(Item.class);
+        ItemController controller = new ItemController(db);
+        WriteBatcher<ItemDO> batcher = new WriteBatcher<>(controller, 10, Duration.ofMillis(1), 1);
+        try {
+            Object id = batcher.post(new ItemDO(null, "batched", 1));
+            assertNotNull(id);
+            assertEquals("batched", db.find(id).getName());
+        } finally {
+            batcher.shutdown();
+        }
+
+        assertThrows(IllegalStateException.class, () -> batcher.post(new ItemDO(null, "late", 1)));
+        assertEquals(1, db.size());
+    }
+}
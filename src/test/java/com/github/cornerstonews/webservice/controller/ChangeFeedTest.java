@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ChangeFeedTest {
+
+    @Test
+    void readsChangesInOrder() {
+        ChangeFeed<String> feed = new ChangeFeed<>(4, true);
+        assertNull(feed.next(0));
+        feed.publish(ChangeEvent.Type.CREATED, 1L, "one");
+        feed.publish(ChangeEvent.Type.UPDATED, 1L, "two");
+
+        ChangeEvent<String> first = feed.next(0);
+        assertEquals(1, first.getSequence());
+        assertEquals(ChangeEvent.Type.CREATED, first.getType());
+        assertEquals("one", first.getObject());
+        ChangeEvent<String> second = feed.next(first.getSequence());
+        assertEquals(2, second.getSequence());
+        assertEquals("two", second.getObject());
+        assertNull(feed.next(second.getSequence()));
+        assertEquals(2, feed.getLastSequence());
+    }
+
+    @Test
+    void readerBehindCapacitySeesAGap() {
+        ChangeFeed<String> feed = new ChangeFeed<>(3, true);
+        for (int i = 1; i <= 7; i++) {
+            feed.publish(ChangeEvent.Type.UPDATED, (long) i, "change-" + i);
+        }
+
+        // changes 1 to 4 are overwritten, the oldest retained one is 5
+        ChangeEvent<String> oldest = feed.next(0);
+        assertEquals(5, oldest.getSequence());
+        assertEquals("change-5", oldest.getObject());
+        assertEquals(5, feed.next(3).getSequence());
+        assertEquals(6, feed.next(5).getSequence());
+        assertEquals(7, feed.next(6).getSequence());
+        assertNull(feed.next(7));
+    }
+
+    @Test
+    void objectsAreOnlyKeptWhenIncluded() {
+        ChangeFeed<String> feed = new ChangeFeed<>(2, false);
+        feed.publish(ChangeEvent.Type.CREATED, 1L, "one");
+        assertNull(feed.next(0).getObject());
+        assertEquals(1L, feed.next(0).getId());
+    }
+
+    @Test
+    void listenersRunOnPublishUntilUnsubscribed() {
+        ChangeFeed<String> feed = new ChangeFeed<>(2, false);
+        AtomicInteger notified = new AtomicInteger();
+        Runnable listener = notified::incrementAndGet;
+        feed.subscribe(listener);
+        feed.publish(ChangeEvent.Type.CREATED, 1L, null);
+        feed.unsubscribe(listener);
+        feed.publish(ChangeEvent.Type.DELETED, 1L, null);
+        assertEquals(1, notified.get());
+    }
+
+    @Test
+    void capacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ChangeFeed<String>(0, false));
+    }
+}
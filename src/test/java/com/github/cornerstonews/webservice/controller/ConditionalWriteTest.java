@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.webservice.controller.Items.Item;
+import com.github.cornerstonews.webservice.controller.Items.ItemDO;
+import com.github.cornerstonews.webservice.exception.PreconditionFailedException;
+
+/*
+ * put() and delete() with an If-Match condition, checked against the version of the stored row.
+ */
+class ConditionalWriteTest {
+
+    private final InMemoryDatabase<Item> db = new InMemoryDatabase<>(Item.class);
+    private final ItemController controller = new ItemController(db);
+
+    private static ItemDO update(Long id, String name) {
+        ItemDO object = new ItemDO(id, name, 3);
+        object.setVersion(1);
+        return object;
+    }
+
+    @Test
+    void putOfTheMatchingVersionIsWritten() throws Exception {
+        Long id = db.insert(Items.item("widget", 3)).getId();
+
+        controller.put(id, update(id, "gadget"), WriteCondition.of("\"1\"", null));
+
+        assertEquals("gadget", db.find(id).getName());
+        assertEquals(2L, db.find(id).getVersion());
+    }
+
+    @Test
+    void putOfAnotherVersionFailsThePrecondition() throws Exception {
+        Long id = db.insert(Items.item("widget", 3)).getId();
+
+        assertThrows(PreconditionFailedException.class, () -> controller.put(id, update(id, "gadget"), WriteCondition.of("\"0\", \"2\"", null)));
+        assertEquals("widget", db.find(id).getName());
+        assertEquals(1L, db.find(id).getVersion());
+    }
+
+    @Test
+    void deleteOfTheMatchingVersionRemovesTheRow() throws Exception {
+        Long id = db.insert(Items.item("widget", 3)).getId();
+
+        controller.delete(id, WriteCondition.of("\"1\"", null));
+
+        assertNull(db.find(id));
+    }
+
+    @Test
+    void deleteOfAnotherVersionFailsThePrecondition() throws Exception {
+        Long id = db.insert(Items.item("widget", 3)).getId();
+
+        assertThrows(PreconditionFailedException.class, () -> controller.delete(id, WriteCondition.of("\"2\"", null)));
+        assertEquals("widget", db.find(id).getName());
+    }
+}
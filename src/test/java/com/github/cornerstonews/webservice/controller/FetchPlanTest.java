@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.Test;
+
+class FetchPlanTest {
+
+    @Test
+    void noParametersIsAll() {
+        assertSame(FetchPlan.ALL, FetchPlan.of(null, null));
+        assertSame(FetchPlan.ALL, FetchPlan.of(" ", ""));
+        assertSame(FetchPlan.ALL, FetchPlan.of(",", " , "));
+        assertTrue(FetchPlan.ALL.includes("anything"));
+        assertTrue(FetchPlan.ALL.expands("anything"));
+    }
+
+    @Test
+    void fieldsAreTrimmedAndDeduplicated() {
+        FetchPlan plan = FetchPlan.of(" name, price ,,name", null);
+        assertFalse(plan.isAll());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("name", "price")), plan.getFields());
+        assertTrue(plan.includes("name"));
+        assertFalse(plan.includes("description"));
+        assertFalse(plan.hasExpansions());
+    }
+
+    @Test
+    void expandWithoutFieldsIncludesAllFields() {
+        FetchPlan plan = FetchPlan.of(null, "orders");
+        assertNull(plan.getFields());
+        assertTrue(plan.includes("name"));
+        assertTrue(plan.expands("orders"));
+        assertFalse(plan.expands("customer"));
+        assertTrue(plan.hasExpansions());
+    }
+
+    @Test
+    void nestedExpansionExpandsItsParents() {
+        FetchPlan plan = FetchPlan.of("name", "orders.items");
+        assertTrue(plan.expands("orders"));
+        assertTrue(plan.expands("orders.items"));
+        assertFalse(plan.expands("order"));
+        assertTrue(plan.includes("orders"));
+        assertFalse(plan.includes("customer"));
+    }
+
+    @Test
+    void variantIgnoresOrderButNotContent() {
+        FetchPlan plan = FetchPlan.of("price,name", "orders");
+        assertEquals(FetchPlan.of("name, price", "orders"), plan);
+        assertEquals(FetchPlan.of("name, price", "orders").getVariant(), plan.getVariant());
+        assertNotEquals(FetchPlan.of("name", "orders").getVariant(), plan.getVariant());
+        assertNotEquals(FetchPlan.of(null, "orders").getVariant(), FetchPlan.of("orders", null).getVariant());
+        assertEquals("", FetchPlan.ALL.getVariant());
+    }
+}
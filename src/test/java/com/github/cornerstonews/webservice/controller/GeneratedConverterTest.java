@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.Id;
+
+import org.junit.jupiter.api.Test;
+
+class GeneratedConverterTest {
+
+    public static class Line {
+        @Id
+        private Long id;
+        private String sku;
+        private Order order;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+
+        public void setOrder(Order order) {
+            this.order = order;
+        }
+    }
+
+    public static class Order {
+        @Id
+        private Long id;
+        private boolean paid;
+        private List<Line> lines = new ArrayList<>();
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+
+        public void setPaid(boolean paid) {
+            this.paid = paid;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<Line> lines) {
+            this.lines = lines;
+        }
+    }
+
+    public static class LineDO {
+        private Long id;
+        private String sku;
+
+        public LineDO() {
+        }
+
+        LineDO(Long id, String sku) {
+            this.id = id;
+            this.sku = sku;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+    }
+
+    public static class OrderDO {
+        private Long id;
+        private boolean paid;
+        private List<LineDO> lines;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+
+        public void setPaid(boolean paid) {
+            this.paid = paid;
+        }
+
+        public List<LineDO> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<LineDO> lines) {
+            this.lines = lines;
+        }
+    }
+
+    private final GeneratedConverter<OrderDO, Order> converter = GeneratedConverter.builder(OrderDO.class, Order.class)
+            .relationship("lines", GeneratedConverter.of(LineDO.class, Line.class))
+            .build();
+
+    @Test
+    void copiesPropertiesAndExpandsRelationships() {
+        Order order = order(1L, line(10L, "a"));
+        order.setPaid(true);
+
+        OrderDO object = converter.convert(order, true);
+        assertEquals(Long.valueOf(1), object.getId());
+        assertTrue(object.isPaid());
+        assertEquals(1, object.getLines().size());
+        assertEquals("a", object.getLines().get(0).getSku());
+
+        assertNull(converter.convert(order, false).getLines());
+    }
+
+    @Test
+    void relatedChildrenAreUpdatedInPlace() {
+        Line kept = line(10L, "a");
+        Line removed = line(11L, "b");
+        Order order = order(1L, kept, removed);
+        List<Line> lines = order.getLines();
+
+        OrderDO object = new OrderDO();
+        object.setId(1L);
+        object.setLines(Arrays.asList(new LineDO(10L, "a2"), new LineDO(null, "c")));
+        assertSame(order, converter.convert(object, order));
+
+        assertSame(lines, order.getLines());
+        assertEquals(2, lines.size());
+        assertSame(kept, lines.get(0));
+        assertEquals("a2", kept.getSku());
+        assertNotSame(removed, lines.get(1));
+        assertNull(lines.get(1).getId());
+        assertEquals("c", lines.get(1).getSku());
+    }
+
+    private static Order order(Long id, Line... lines) {
+        Order order = new Order();
+        order.setId(id);
+        for (Line line : lines) {
+            line.setOrder(order);
+            order.getLines().add(line);
+        }
+        return order;
+    }
+
+    private static Line line(Long id, String sku) {
+        Line line = new Line();
+        line.setId(id);
+        line.setSku(sku);
+        return line;
+    }
+}
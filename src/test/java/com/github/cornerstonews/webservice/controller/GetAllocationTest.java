@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.persistence.jpa.controller.JpaController;
+import com.github.cornerstonews.webservice.cache.DoCache;
+
+/*
+ * Bytes allocated by getVersioned() and reading its object, the path of the GET resource method, on top of the lookup
+ * and conversion, which the test controller answers with preallocated objects.
+ *  - BYTES_PER_GET: budget per call, leaves room for the Versioned and the lambdas of a cache lookup but not for per
+ *    call metadata, string building or boxing of the id
+ */
+class GetAllocationTest {
+
+    private static final long BYTES_PER_GET = 256;
+    private static final int WARMUP = 20000;
+    private static final int CALLS = 10000;
+
+    static class Item {
+        private Long id;
+        private String name;
+    }
+
+    public static class ItemDO {
+        private final Long id;
+
+        public ItemDO(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    static class ItemController extends AbstractWsController<ItemDO, Item> {
+        private final Item entity = new Item();
+        private final ItemDO object = new ItemDO(42L);
+        private final DoCache<ItemDO> cache;
+        private final JpaController<Item> jpaController = new JpaController<Item>(null, Item.class) {
+            @Override
+            public Item findByPrimaryKey(Object id) {
+                return entity;
+            }
+
+            @Override
+            public Object convertToPrimaryKeyType(Object id) {
+                return id;
+            }
+        };
+
+        ItemController(DoCache<ItemDO> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        protected JpaController<Item> getJpaController() {
+            return jpaController;
+        }
+
+        @Override
+        protected DoCache<ItemDO> getDoCache() {
+            return cache;
+        }
+
+        @Override
+        protected ItemDO convertToDO(Item entity, boolean convertRelationships) {
+            return object;
+        }
+
+        @Override
+        protected Item convertToEntity(ItemDO object) {
+            return entity;
+        }
+
+        @Override
+        protected Item convertToEntity(ItemDO object, Item entity) {
+            return entity;
+        }
+    }
+
+    @Test
+    void uncachedGetStaysWithinBudget() throws Exception {
+        assertWithinBudget(new ItemController(null));
+    }
+
+    @Test
+    void cachedGetStaysWithinBudget() throws Exception {
+        assertWithinBudget(new ItemController(new DoCache<>(100, Duration.ofMinutes(10))));
+    }
+
+    private static void assertWithinBudget(ItemController controller) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Long id = 42L;
+        for (int i = 0; i < WARMUP; i++) {
+            assertSame(controller.object, controller.getVersioned(id, FetchPlan.ALL).get());
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < CALLS; i++) {
+            controller.getVersioned(id, FetchPlan.ALL).get();
+        }
+        long perGet = (threads.getThreadAllocatedBytes(thread) - before) / CALLS;
+        assertTrue(perGet <= BYTES_PER_GET, "getVersioned() allocated " + perGet + " bytes per call, budget is " + BYTES_PER_GET);
+    }
+}
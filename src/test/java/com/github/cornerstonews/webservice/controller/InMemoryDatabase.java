@@ -0,0 +1,680 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Id;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
+import javax.persistence.Version;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+
+import com.github.cornerstonews.persistence.jpa.controller.JpaController;
+
+/*
+ * In memory stand in for the persistence unit of one entity type, covering what the write paths of
+ * AbstractWsController use.
+ *
+ *  Rows are committed copies of the entities by id. Every EntityManager is a persistence context of managed copies,
+ *  written back with an incremented version on commit and dropped on rollback. Like a real provider, an entity
+ *  persisted in a rolled back transaction keeps its generated id, and persisting it again fails.
+ *  Criteria updates (blind updates) and id IN queries (bulk loads) are interpreted, other queries are not supported.
+ *  - reject(): flush fails for the entities matching, the same way for all of them, like a constraint violation
+ *  - fail(): every database call fails with the given exception, like a database that went away
+ *  Entities need an @Id Long and a @Version long field, list fields are copied element by element.
+ */
+final class InMemoryDatabase<E> {
+
+    private final Class<E> type;
+    private final List<Field> fields = new ArrayList<>();
+    private final Field idField;
+    private final Field versionField;
+    private final Map<String, Attribute<E, ?>> attributes = new LinkedHashMap<>();
+    private final EntityType<E> entityType;
+    private final Metamodel metamodel;
+    private final CriteriaBuilder criteriaBuilder;
+    private final EntityManagerFactory emf;
+    private final AtomicInteger transactions = new AtomicInteger();
+
+    // Guarded by this
+    private final Map<Object, E> rows = new TreeMap<>();
+    private long nextId = 1;
+
+    private volatile Predicate<E> rejected = entity -> false;
+    private volatile String rejection;
+    private volatile RuntimeException failure;
+
+    InMemoryDatabase(Class<E> type) {
+        this.type = type;
+        Field id = null;
+        Field version = null;
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            fields.add(field);
+            if (field.isAnnotationPresent(Id.class)) {
+                id = field;
+            } else if (field.isAnnotationPresent(Version.class)) {
+                version = field;
+            }
+        }
+        this.idField = id;
+        this.versionField = version;
+        this.entityType = proxy(EntityType.class, this::entityType);
+        for (Field field : fields) {
+            attributes.put(field.getName(), attribute(field));
+        }
+        this.metamodel = proxy(Metamodel.class, (proxy, method, args) -> entityType);
+        this.criteriaBuilder = proxy(CriteriaBuilder.class, this::criteriaBuilder);
+        this.emf = proxy(EntityManagerFactory.class, (proxy, method, args) -> {
+            if (method.getName().equals("createEntityManager")) {
+                return proxy(EntityManager.class, new Session());
+            }
+            throw unsupported(method);
+        });
+    }
+
+    EntityManagerFactory getEntityManagerFactory() {
+        return emf;
+    }
+
+    /*
+     * JpaController reading and writing the rows directly, each call in a transaction of its own.
+     */
+    JpaController<E> getJpaController() {
+        return new JpaController<E>(emf, type) {
+            @Override
+            public E findByPrimaryKey(Object id) {
+                return find(convertToPrimaryKeyType(id));
+            }
+
+            @Override
+            public Object convertToPrimaryKeyType(Object id) {
+                return id == null ? null : Long.valueOf(id.toString());
+            }
+
+            @Override
+            public Object getPrimaryKey(E entity) {
+                return id(entity);
+            }
+
+            @Override
+            public void create(E entity) {
+                insert(entity);
+            }
+
+            @Override
+            public void update(E entity) {
+                merge(entity);
+            }
+
+            @Override
+            public void delete(E entity) {
+                checkAvailable();
+                synchronized (InMemoryDatabase.this) {
+                    rows.remove(id(entity));
+                }
+            }
+        };
+    }
+
+    /*
+     * Stores a copy of the entity with a new id and version 1, returns the entity with both set.
+     */
+    synchronized E insert(E entity) {
+        checkAvailable();
+        write(idField, entity, nextId++);
+        write(versionField, entity, 1L);
+        rows.put(id(entity), copy(entity));
+        transactions.incrementAndGet();
+        return entity;
+    }
+
+    /*
+     * Detached copy of the row with the given id, null when there is none.
+     */
+    synchronized E find(Object id) {
+        checkAvailable();
+        E row = rows.get(id);
+        return row == null ? null : copy(row);
+    }
+
+    synchronized int size() {
+        return rows.size();
+    }
+
+    /*
+     * Number of transactions committed or rolled back.
+     */
+    int getTransactions() {
+        return transactions.get();
+    }
+
+    void reject(Predicate<E> rejected, String message) {
+        this.rejection = message;
+        this.rejected = rejected;
+    }
+
+    void fail(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    private synchronized void merge(E entity) {
+        checkAvailable();
+        E row = rows.get(id(entity));
+        if (row == null) {
+            throw new PersistenceException("No row with id " + id(entity));
+        }
+        if (!Objects.equals(version(row), version(entity))) {
+            throw new OptimisticLockException("Row " + id(entity) + " is at version " + version(row));
+        }
+        write(versionField, entity, version(entity) + 1);
+        rows.put(id(entity), copy(entity));
+        transactions.incrementAndGet();
+    }
+
+    private void checkAvailable() {
+        RuntimeException unavailable = failure;
+        if (unavailable != null) {
+            throw unavailable;
+        }
+    }
+
+    /*
+     * Persistence context of one EntityManager.
+     */
+    private class Session implements InvocationHandler {
+        private final Map<Object, E> managed = new LinkedHashMap<>();
+        private final Set<Object> persisted = new HashSet<>();
+        private final Set<Object> removed = new HashSet<>();
+        private boolean active;
+        private final EntityTransaction transaction = proxy(EntityTransaction.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+            case "begin":
+                active = true;
+                return null;
+            case "commit":
+                commit();
+                return null;
+            case "rollback":
+                rollback();
+                return null;
+            case "isActive":
+                return active;
+            default:
+                throw unsupported(method);
+            }
+        });
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+            case "find":
+                return find(args[1]);
+            case "persist":
+                persist((E) args[0]);
+                return null;
+            case "remove":
+                removed.add(id((E) args[0]));
+                return null;
+            case "flush":
+                flush();
+                return null;
+            case "getTransaction":
+                return transaction;
+            case "getMetamodel":
+                return metamodel;
+            case "getCriteriaBuilder":
+                return criteriaBuilder;
+            case "createQuery":
+                if (args[0] instanceof CriteriaUpdate) {
+                    Update update = handler(args[0]);
+                    return proxy(TypedQuery.class, (query, queryMethod, queryArgs) -> executeUpdate(update));
+                }
+                return idQuery();
+            case "getEntityManagerFactory":
+                return emf;
+            case "close":
+                managed.clear();
+                return null;
+            default:
+                throw unsupported(method);
+            }
+        }
+
+        private E find(Object id) {
+            checkAvailable();
+            return managed.computeIfAbsent(id, key -> {
+                synchronized (InMemoryDatabase.this) {
+                    E row = rows.get(key);
+                    return row == null ? null : copy(row);
+                }
+            });
+        }
+
+        private void persist(E entity) {
+            checkAvailable();
+            if (id(entity) != null) {
+                throw new PersistenceException("Detached entity passed to persist: " + id(entity));
+            }
+            synchronized (InMemoryDatabase.this) {
+                write(idField, entity, nextId++);
+            }
+            managed.put(id(entity), entity);
+            persisted.add(id(entity));
+        }
+
+        private void flush() {
+            checkAvailable();
+            for (E entity : managed.values()) {
+                if (!removed.contains(id(entity)) && rejected.test(entity)) {
+                    throw new PersistenceException(rejection);
+                }
+            }
+        }
+
+        private void commit() {
+            try {
+                flush();
+                synchronized (InMemoryDatabase.this) {
+                    for (E entity : managed.values()) {
+                        E row = rows.get(id(entity));
+                        if (!persisted.contains(id(entity)) && (row == null || !Objects.equals(version(row), version(entity)))) {
+                            throw new OptimisticLockException("Row " + id(entity) + " changed or was removed");
+                        }
+                    }
+                    for (E entity : managed.values()) {
+                        Object id = id(entity);
+                        if (removed.contains(id)) {
+                            rows.remove(id);
+                        } else if (persisted.contains(id)) {
+                            write(versionField, entity, 1L);
+                            rows.put(id, copy(entity));
+                        } else if (!sameState(entity, rows.get(id))) {
+                            write(versionField, entity, version(entity) + 1);
+                            rows.put(id, copy(entity));
+                        }
+                    }
+                }
+            } finally {
+                active = false;
+                transactions.incrementAndGet();
+            }
+        }
+
+        private void rollback() {
+            // like a provider, ids generated for persisted entities are not reset
+            active = false;
+            managed.clear();
+            persisted.clear();
+            removed.clear();
+            transactions.incrementAndGet();
+        }
+
+        private TypedQuery<?> idQuery() {
+            List<Object> ids = new ArrayList<>();
+            return proxy(TypedQuery.class, (query, method, args) -> {
+                switch (method.getName()) {
+                case "setParameter":
+                    ids.addAll((Collection<?>) args[1]);
+                    return query;
+                case "getResultList":
+                    List<E> result = new ArrayList<>();
+                    for (Object id : ids) {
+                        E entity = find(id);
+                        if (entity != null) {
+                            result.add(entity);
+                        }
+                    }
+                    return result;
+                default:
+                    throw unsupported(method);
+                }
+            });
+        }
+    }
+
+    /*
+     * Recorded criteria update, values and conditions by attribute name.
+     */
+    private static final class Update implements InvocationHandler {
+        private static final Object INCREMENT = new Object();
+
+        private final Map<String, Object> values = new HashMap<>();
+        private final Map<String, Object> conditions = new HashMap<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+            case "from":
+                return proxy(Root.class, (root, rootMethod, rootArgs) -> {
+                    if (rootMethod.getName().equals("get")) {
+                        return proxy(Path.class, new Node(((Attribute<?, ?>) rootArgs[0]).getName(), null, false));
+                    }
+                    throw unsupported(rootMethod);
+                });
+            case "set":
+                String name = args[0] instanceof Attribute ? ((Attribute<?, ?>) args[0]).getName() : node(args[0]).attribute;
+                Node value = args[1] instanceof Proxy ? node(args[1]) : null;
+                values.put(name, value == null ? args[1] : value.increment ? INCREMENT : value.value);
+                return proxy;
+            case "where":
+                for (Object predicate : (Object[]) args[0]) {
+                    conditions.put(node(predicate).attribute, node(predicate).value);
+                }
+                return proxy;
+            default:
+                throw unsupported(method);
+            }
+        }
+    }
+
+    /*
+     * Path to an attribute, the attribute compared to a value, the attribute incremented, or a literal value.
+     */
+    private static final class Node implements InvocationHandler {
+        private final String attribute;
+        private final Object value;
+        private final boolean increment;
+
+        Node(String attribute, Object value, boolean increment) {
+            this.attribute = attribute;
+            this.value = value;
+            this.increment = increment;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            throw unsupported(method);
+        }
+    }
+
+    private static Node node(Object proxy) {
+        return handler(proxy);
+    }
+
+    private Object criteriaBuilder(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+        case "createCriteriaUpdate":
+            return proxy(CriteriaUpdate.class, new Update());
+        case "sum":
+            return proxy(Expression.class, new Node(node(args[0]).attribute, args[1], true));
+        case "literal":
+            return proxy(Expression.class, new Node(null, args[0], false));
+        case "equal":
+            return proxy(javax.persistence.criteria.Predicate.class, new Node(node(args[0]).attribute, args[1], false));
+        default:
+            throw unsupported(method);
+        }
+    }
+
+    private synchronized int executeUpdate(Update update) {
+        checkAvailable();
+        E row = rows.get(update.conditions.get(idField.getName()));
+        if (row == null || !Objects.equals(version(row), update.conditions.get(versionField.getName()))) {
+            return 0;
+        }
+        E updated = copy(row);
+        update.values.forEach((name, value) -> {
+            Field field = ((Field) ((SingularAttribute<?, ?>) attributes.get(name)).getJavaMember());
+            write(field, updated, value == Update.INCREMENT ? version(row) + 1 : value);
+        });
+        rows.put(id(updated), updated);
+        return 1;
+    }
+
+    private Object entityType(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+        case "getName":
+            return type.getSimpleName();
+        case "getJavaType":
+            return type;
+        case "getSingularAttributes":
+            Set<Attribute<E, ?>> singular = new LinkedHashSet<>();
+            attributes.values().stream().filter(attribute -> attribute instanceof SingularAttribute).forEach(singular::add);
+            return singular;
+        case "getAttributes":
+            return new LinkedHashSet<>(attributes.values());
+        case "getAttribute":
+            return attributes.get(args[0]);
+        case "getId":
+            return attributes.get(idField.getName());
+        case "getVersion":
+            return attributes.get(versionField.getName());
+        case "getIdType":
+            return proxy(Type.class, (idType, idMethod, idArgs) -> idField.getType());
+        case "hasSingleIdAttribute":
+            return true;
+        default:
+            throw unsupported(method);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Attribute<E, ?> attribute(Field field) {
+        boolean collection = Collection.class.isAssignableFrom(field.getType());
+        return proxy(collection ? Attribute.class : SingularAttribute.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+            case "getName":
+                return field.getName();
+            case "getJavaMember":
+                return field;
+            case "getJavaType":
+                return field.getType();
+            case "getDeclaringType":
+                return entityType;
+            case "isId":
+                return field == idField;
+            case "isVersion":
+                return field == versionField;
+            case "isAssociation":
+            case "isCollection":
+                return collection;
+            case "isOptional":
+                return field != idField;
+            case "getPersistentAttributeType":
+                return collection ? Attribute.PersistentAttributeType.ONE_TO_MANY : Attribute.PersistentAttributeType.BASIC;
+            default:
+                throw unsupported(method);
+            }
+        });
+    }
+
+    private Object id(E entity) {
+        return read(idField, entity);
+    }
+
+    private long version(E entity) {
+        return (Long) read(versionField, entity);
+    }
+
+    private E copy(E entity) {
+        return type.cast(copyObject(entity));
+    }
+
+    /*
+     * Copy of the object field by field, list fields hold copies of the elements.
+     */
+    private static Object copyObject(Object object) {
+        try {
+            Constructor<?> constructor = object.getClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Object copy = constructor.newInstance();
+            for (Field field : instanceFields(object.getClass())) {
+                Object value = field.get(object);
+                if (value instanceof List) {
+                    List<Object> elements = new ArrayList<>();
+                    for (Object element : (List<?>) value) {
+                        elements.add(element == null ? null : copyObject(element));
+                    }
+                    value = elements;
+                }
+                field.set(copy, value);
+            }
+            return copy;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not copy " + object, e);
+        }
+    }
+
+    /*
+     * Whether the objects hold the same values, ignoring the version, list fields compared element by element.
+     */
+    private boolean sameState(Object a, Object b) {
+        if (a == null || b == null || a.getClass() != b.getClass()) {
+            return a == b;
+        }
+        for (Field field : instanceFields(a.getClass())) {
+            if (field.equals(versionField)) {
+                continue;
+            }
+            Object valueA = read(field, a);
+            Object valueB = read(field, b);
+            if (valueA instanceof List && valueB instanceof List) {
+                List<?> listA = (List<?>) valueA;
+                List<?> listB = (List<?>) valueB;
+                if (listA.size() != listB.size()) {
+                    return false;
+                }
+                for (int i = 0; i < listA.size(); i++) {
+                    if (!sameState(listA.get(i), listB.get(i))) {
+                        return false;
+                    }
+                }
+            } else if (!Objects.equals(valueA, valueB)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Field> instanceFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static Object read(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void write(Field field, Object object, Object value) {
+        try {
+            field.set(object, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Proxy answering the Object methods by identity and everything else through the handler.
+     */
+    @SuppressWarnings("unchecked")
+    private static <P> P proxy(Class<?> type, InvocationHandler handler) {
+        return (P) Proxy.newProxyInstance(InMemoryDatabase.class.getClassLoader(), new Class<?>[] { type }, new ObjectMethods(type, handler));
+    }
+
+    /*
+     * Handler given to proxy() for the proxy.
+     */
+    @SuppressWarnings("unchecked")
+    private static <H extends InvocationHandler> H handler(Object proxy) {
+        return (H) ((ObjectMethods) Proxy.getInvocationHandler(proxy)).handler;
+    }
+
+    private static final class ObjectMethods implements InvocationHandler {
+        private final Class<?> type;
+        private final InvocationHandler handler;
+
+        ObjectMethods(Class<?> type, InvocationHandler handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+            case "equals":
+                if (method.getParameterCount() == 1) {
+                    return proxy == args[0];
+                }
+                break;
+            case "hashCode":
+                if (method.getParameterCount() == 0) {
+                    return System.identityHashCode(proxy);
+                }
+                break;
+            case "toString":
+                if (method.getParameterCount() == 0) {
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                }
+                break;
+            default:
+                break;
+            }
+            return handler.invoke(proxy, method, args);
+        }
+    }
+
+    private static UnsupportedOperationException unsupported(Method method) {
+        return new UnsupportedOperationException(method.getDeclaringClass().getSimpleName() + "." + method.getName() + " is not supported");
+    }
+}
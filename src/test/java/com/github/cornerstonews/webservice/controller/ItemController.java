@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import javax.persistence.EntityManagerFactory;
+
+import com.github.cornerstonews.persistence.jpa.controller.JpaController;
+import com.github.cornerstonews.webservice.controller.Items.Item;
+import com.github.cornerstonews.webservice.controller.Items.ItemDO;
+import com.github.cornerstonews.webservice.controller.Items.Tag;
+import com.github.cornerstonews.webservice.controller.Items.TagDO;
+
+/*
+ * Controller of the test items over an InMemoryDatabase, converting through a GeneratedConverter.
+ *  Tests override the other hooks in anonymous subclasses.
+ */
+class ItemController extends AbstractWsController<ItemDO, Item> {
+
+    static final GeneratedConverter<ItemDO, Item> CONVERTER = GeneratedConverter.builder(ItemDO.class, Item.class)
+            .relationship("tags", GeneratedConverter.of(TagDO.class, Tag.class))
+            .build();
+
+    private final InMemoryDatabase<Item> database;
+    private final JpaController<Item> jpaController;
+
+    ItemController(InMemoryDatabase<Item> database) {
+        this.database = database;
+        this.jpaController = database.getJpaController();
+    }
+
+    @Override
+    protected JpaController<Item> getJpaController() {
+        return jpaController;
+    }
+
+    @Override
+    protected EntityManagerFactory getEntityManagerFactory() {
+        return database.getEntityManagerFactory();
+    }
+
+    @Override
+    protected DoConverter<ItemDO, Item> getDoConverter() {
+        return CONVERTER;
+    }
+
+    @Override
+    protected ItemDO convertToDO(Item entity, boolean convertRelationships) {
+        return CONVERTER.convert(entity, convertRelationships);
+    }
+
+    @Override
+    protected Item convertToEntity(ItemDO object) {
+        return CONVERTER.convert(object);
+    }
+
+    @Override
+    protected Item convertToEntity(ItemDO object, Item entity) {
+        return CONVERTER.convert(object, entity);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.webservice.controller.Items.Item;
+import com.github.cornerstonews.webservice.exception.StaleEntityException;
+
+/*
+ * patch() changes the patched properties only.
+ */
+class PatchTest {
+
+    @Test
+    void patchLeavesCollectionRelationshipsIntact() throws Exception {
+        InMemoryDatabase<Item> db = new InMemoryDatabase<>(Item.class);
+        Long id = db.insert(Items.item("widget", 3, "red", "blue")).getId();
+
+        new ItemController(db).patch(id, Collections.singletonMap("name", "gadget"));
+
+        Item patched = db.find(id);
+        assertEquals("gadget", patched.getName());
+        assertEquals(3, patched.getQuantity());
+        assertEquals(2, patched.getTags().size());
+        assertEquals(Long.valueOf(1), patched.getTags().get(0).getId());
+        assertEquals("red", patched.getTags().get(0).getLabel());
+        assertEquals(Long.valueOf(2), patched.getTags().get(1).getId());
+        assertEquals("blue", patched.getTags().get(1).getLabel());
+        assertEquals(2L, patched.getVersion());
+    }
+
+    @Test
+    void unchangedPatchDoesNotWrite() throws Exception {
+        InMemoryDatabase<Item> db = new InMemoryDatabase<>(Item.class);
+        Long id = db.insert(Items.item("widget", 3, "red")).getId();
+
+        new ItemController(db).patch(id, Collections.singletonMap("quantity", 3));
+
+        assertEquals(1L, db.find(id).getVersion());
+    }
+
+    @Test
+    void staleVersionIsRejected() throws Exception {
+        InMemoryDatabase<Item> db = new InMemoryDatabase<>(Item.class);
+        Long id = db.insert(Items.item("widget", 3)).getId();
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("version", 7);
+        patch.put("name", "gadget");
+
+        assertThrows(StaleEntityException.class, () -> new ItemController(db).patch(id, patch));
+        assertEquals("widget", db.find(id).getName());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.persistence.jpa.controller.JpaController;
+import com.github.cornerstonews.webservice.cache.DoCache;
+import com.github.cornerstonews.webservice.cache.SingleFlight;
+
+/*
+ * Concurrent reads through getVersioned(), the path of the GET resource method, share one load per id and plan.
+ */
+class ReadCoalescingTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    static class Item {
+    }
+
+    public static class ItemDO {
+    }
+
+    static class ItemController extends AbstractWsController<ItemDO, Item> {
+        private final SingleFlight<DoCache.Entry<ItemDO>> singleFlight = new SingleFlight<>();
+        private final AtomicInteger loads = new AtomicInteger();
+        private final CountDownLatch loading = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final JpaController<Item> jpaController = new JpaController<Item>(null, Item.class) {
+            @Override
+            public Item findByPrimaryKey(Object id) {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Item();
+            }
+
+            @Override
+            public Object convertToPrimaryKeyType(Object id) {
+                return Long.valueOf(id.toString());
+            }
+        };
+
+        @Override
+        protected JpaController<Item> getJpaController() {
+            return jpaController;
+        }
+
+        @Override
+        protected SingleFlight<DoCache.Entry<ItemDO>> getSingleFlight() {
+            return singleFlight;
+        }
+
+        @Override
+        protected ItemDO convertToDO(Item entity, boolean convertRelationships) {
+            return new ItemDO();
+        }
+
+        @Override
+        protected Item convertToEntity(ItemDO object) {
+            return new Item();
+        }
+
+        @Override
+        protected Item convertToEntity(ItemDO object, Item entity) {
+            return entity;
+        }
+    }
+
+    private final ItemController controller = new ItemController();
+
+    @Test
+    void concurrentGetsShareOneLoad() throws Exception {
+        CompletableFuture<ItemDO> first = get("42");
+        controller.loading.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        CompletableFuture<ItemDO> second = getWhileLoading("42");
+
+        assertSame(first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, controller.loads.get());
+        assertEquals(0, controller.singleFlight.size());
+    }
+
+    @Test
+    void completedLoadsAreNotShared() throws Exception {
+        controller.release.countDown();
+        ItemDO first = controller.getVersioned("42", FetchPlan.ALL).get();
+        ItemDO second = controller.getVersioned("42", FetchPlan.ALL).get();
+        assertNotSame(first, second);
+        assertEquals(2, controller.loads.get());
+    }
+
+    private CompletableFuture<ItemDO> get(Object id) {
+        CompletableFuture<ItemDO> result = new CompletableFuture<>();
+        new Thread(() -> {
+            try {
+                result.complete(controller.getVersioned(id, FetchPlan.ALL).get());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }).start();
+        return result;
+    }
+
+    /*
+     * get() that returns once the caller waits for the load in flight, then lets that load complete.
+     */
+    private CompletableFuture<ItemDO> getWhileLoading(Object id) throws InterruptedException {
+        CompletableFuture<ItemDO> result = get(id);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!hasWaitingCaller() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        controller.release.countDown();
+        return result;
+    }
+
+    private static boolean hasWaitingCaller() {
+        for (StackTraceElement[] stack : Thread.getAllStackTraces().values()) {
+            for (StackTraceElement frame : stack) {
+                if (frame.getClassName().equals(SingleFlight.class.getName()) && frame.getMethodName().equals("await")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.eclipse.persistence.exceptions.DatabaseException;
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.persistence.jpa.controller.JpaController;
+import com.github.cornerstonews.webservice.cache.ReplicaRouting;
+import com.github.cornerstonews.webservice.controller.Items.Item;
+import com.github.cornerstonews.webservice.controller.Items.ItemDO;
+
+/*
+ * Reads of the same id hold a different name on the primary and on the replica, showing where they were served from.
+ */
+class ReplicaRoutingTest {
+
+    private final InMemoryDatabase<Item> primary = new InMemoryDatabase<>(Item.class);
+    private final InMemoryDatabase<Item> replica = new InMemoryDatabase<>(Item.class);
+    private final ReplicaRouting routing = new ReplicaRouting(100, Duration.ofMinutes(1));
+    private final ItemController controller = new ItemController(primary) {
+        private final JpaController<Item> readJpaController = replica.getJpaController();
+
+        @Override
+        protected JpaController<Item> getReadJpaController() {
+            return readJpaController;
+        }
+
+        @Override
+        protected EntityManagerFactory getReadEntityManagerFactory() {
+            return replica.getEntityManagerFactory();
+        }
+
+        @Override
+        protected ReplicaRouting getReplicaRouting() {
+            return routing;
+        }
+    };
+
+    private Long insert(String primaryName, String replicaName) {
+        Long id = primary.insert(Items.item(primaryName, 1)).getId();
+        if (replicaName != null) {
+            replica.insert(Items.item(replicaName, 1));
+        }
+        return id;
+    }
+
+    @Test
+    void readsAreServedByTheReplica() throws Exception {
+        Long id = insert("primary", "replica");
+
+        assertEquals("replica", controller.get(id).getName());
+        assertEquals("replica", controller.getVersioned(id, FetchPlan.ALL).get().getName());
+    }
+
+    @Test
+    void idsMissingOnTheReplicaAreReadFromThePrimary() throws Exception {
+        Long id = insert("primary", null);
+
+        assertEquals("primary", controller.get(id).getName());
+    }
+
+    @Test
+    void writtenIdsAreReadFromThePrimary() throws Exception {
+        Long id = insert("primary", "replica");
+        ItemDO update = new ItemDO(id, "updated", 2);
+        update.setVersion(1);
+
+        controller.put(id, update);
+
+        assertEquals("updated", controller.get(id).getName());
+    }
+
+    @Test
+    void replicaFailuresFallBackToThePrimary() throws Exception {
+        Long id = insert("primary", "replica");
+        replica.fail(DatabaseException.sqlException(new SQLException("Connection reset", "08006")));
+
+        assertEquals("primary", controller.get(id).getName());
+
+        // the replica is skipped for the retry delay, even once it answers again
+        replica.fail(null);
+        assertEquals("primary", controller.get(id).getName());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.persistence.Id;
+import javax.persistence.Version;
+
+import org.junit.jupiter.api.Test;
+
+class TypeMetadataTest {
+
+    static class ItemEntity {
+        @Id
+        private Long id;
+        @Version
+        private long version;
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    public static class ItemDO {
+        private Long id;
+        private String name;
+        private boolean active;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+    }
+
+    static class OrderDo {
+    }
+
+    static class Video {
+    }
+
+    @Test
+    void displayNameDropsTrailingDO() {
+        assertEquals("Item", TypeMetadata.of(ItemDO.class).getDisplayName());
+        assertEquals("Order", TypeMetadata.of(OrderDo.class).getDisplayName());
+        assertEquals("Video", TypeMetadata.of(Video.class).getDisplayName());
+        assertEquals("ItemEntity", TypeMetadata.of(ItemEntity.class).getDisplayName());
+    }
+
+    @Test
+    void metadataIsComputedOncePerType() {
+        assertSame(TypeMetadata.of(ItemDO.class), TypeMetadata.of(ItemDO.class));
+    }
+
+    @Test
+    void findsIdAndVersionMembers() {
+        TypeMetadata entity = TypeMetadata.of(ItemEntity.class);
+        assertEquals("id", entity.getIdName());
+        assertEquals(Long.class, entity.getIdType());
+        assertEquals("version", entity.getVersionName());
+        assertTrue(entity.isVersioned());
+
+        ItemEntity item = new ItemEntity();
+        item.version = 3;
+        assertEquals(3L, entity.getVersion(item));
+
+        TypeMetadata object = TypeMetadata.of(ItemDO.class);
+        assertNull(object.getIdName());
+        assertFalse(object.isVersioned());
+    }
+
+    @Test
+    void findsGettersAndSettersByProperty() {
+        TypeMetadata object = TypeMetadata.of(ItemDO.class);
+        assertNotNull(object.getGetter("name"));
+        assertNull(object.getSetter("name"));
+        assertNotNull(object.getGetter("active"));
+        assertNotNull(object.getSetter("active"));
+        assertNull(object.getGetter("class"));
+        assertNull(object.getGetter(null));
+    }
+
+    @Test
+    void findsTheIdGetterOfTheDO() {
+        TypeMetadata object = TypeMetadata.of(ItemDO.class);
+        ItemDO item = new ItemDO();
+        item.setId(7L);
+        assertEquals(7L, object.read(object.getIdGetter(TypeMetadata.of(ItemEntity.class)), item));
+    }
+}
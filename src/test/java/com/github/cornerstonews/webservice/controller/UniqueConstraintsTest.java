@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Matching of the rows a unique field query returns to the candidates, against an EntityManager stub answering
+ * every query with the given rows.
+ */
+class UniqueConstraintsTest {
+
+    static class Account {
+        private Long id;
+        private String username;
+        private String firstName;
+        private String lastName;
+
+        Account(Long id, String username, String firstName, String lastName) {
+            this.id = id;
+            this.username = username;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+    }
+
+    private static final SingularAttribute<Account, String> USERNAME = attribute("username");
+    private static final SingularAttribute<Account, String> FIRST_NAME = attribute("firstName");
+    private static final SingularAttribute<Account, String> LAST_NAME = attribute("lastName");
+
+    private int queries;
+
+    @Test
+    void existingValueIsAViolation() {
+        UniqueConstraints<Account> constraints = new UniqueConstraints<Account>().unique(USERNAME);
+        Map<String, Object> violations = constraints.findViolations(database(new Account(1L, "alice", null, null)), Account.class,
+                new Account(null, "alice", null, null), null);
+        assertEquals(Collections.singletonMap("username", "alice"), violations);
+    }
+
+    @Test
+    void rowsOfCaseInsensitiveCollationsAreMatchedIgnoringCase() {
+        // a case insensitive collation returns 'Alice' for 'alice', it is still a conflict
+        UniqueConstraints<Account> constraints = new UniqueConstraints<Account>().unique(USERNAME);
+        Map<String, Object> violations = constraints.findViolations(database(new Account(1L, "Alice", null, null)), Account.class,
+                new Account(null, "alice", null, null), null);
+        assertEquals(Collections.singletonMap("username", "alice"), violations);
+    }
+
+    @Test
+    void exactMatchesArePreferred() {
+        // the row matches 'alice' exactly, 'ALICE' is only in the batch because a case sensitive database did not return a row for it
+        UniqueConstraints<Account> constraints = new UniqueConstraints<Account>().unique(USERNAME);
+        List<Account> candidates = Arrays.asList(new Account(null, "alice", null, null), new Account(null, "ALICE", null, null));
+        Map<Integer, Map<String, Object>> violations = constraints.findViolations(database(new Account(1L, "alice", null, null)), Account.class,
+                candidates, Arrays.asList(null, null));
+        assertEquals(Collections.singletonMap(0, Collections.singletonMap("username", "alice")), violations);
+    }
+
+    @Test
+    void ownRowIsExcluded() {
+        UniqueConstraints<Account> constraints = new UniqueConstraints<Account>().unique(USERNAME);
+        Map<String, Object> violations = constraints.findViolations(database(new Account(1L, "alice", null, null)), Account.class,
+                new Account(1L, "alice", null, null), 1L);
+        assertTrue(violations.isEmpty(), violations.toString());
+    }
+
+    @Test
+    void duplicatesWithinTheBatchAreViolations() {
+        UniqueConstraints<Account> constraints = new UniqueConstraints<Account>().unique(USERNAME);
+        List<Account> candidates = Arrays.asList(new Account(null, "bob", null, null), new Account(null, "carol", null, null),
+                new Account(null, "bob", null, null));
+        Map<Integer, Map<String, Object>> violations = constraints.findViolations(database(), Account.class, candidates,
+                Arrays.asList(null, null, null));
+        assertEquals(Collections.singletonMap(2, Collections.singletonMap("username", "bob")), violations);
+    }
+
+    @Test
+    void compositeConstraintsMatchAllAttributes() {
+        UniqueConstraints<Account> constraints = new UniqueConstraints<Account>().unique(FIRST_NAME, LAST_NAME);
+        EntityManager em = database(new Account(1L, "a", "Ann", "Lee"), new Account(2L, "b", "Ann", "Other"));
+        List<Account> candidates = Arrays.asList(new Account(null, "c", "Ann", "Lee"), new Account(null, "d", "Ann", "Smith"));
+        Map<Integer, Map<String, Object>> violations = constraints.findViolations(em, Account.class, candidates, Arrays.asList(null, null));
+        assertEquals(Collections.singletonMap(0, Collections.singletonMap("firstName,lastName", Arrays.asList("Ann", "Lee"))), violations);
+    }
+
+    @Test
+    void nullValuesAreNotChecked() {
+        UniqueConstraints<Account> constraints = new UniqueConstraints<Account>().unique(USERNAME).unique(FIRST_NAME, LAST_NAME);
+        Map<String, Object> violations = constraints.findViolations(database(new Account(1L, null, "Ann", null)), Account.class,
+                new Account(null, null, "Ann", null), null);
+        assertTrue(violations.isEmpty(), violations.toString());
+        assertEquals(0, queries);
+    }
+
+    @Test
+    void onlyConstraintsOfChangedAttributesAreChecked() {
+        UniqueConstraints<Account> constraints = new UniqueConstraints<Account>().unique(USERNAME);
+        Map<String, Object> violations = constraints.findViolations(database(new Account(1L, "alice", null, null)), Account.class,
+                new Account(2L, "alice", "Ann", null), 2L, Collections.singleton("firstName"));
+        assertTrue(violations.isEmpty(), violations.toString());
+        assertEquals(0, queries);
+        assertTrue(constraints.covers(Collections.singleton("username")));
+    }
+
+    /*
+     * EntityManager whose queries all return the given rows, every other call returns a stub of its return type.
+     */
+    private EntityManager database(Account... rows) {
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                case "getResultList":
+                    queries++;
+                    return Arrays.asList(rows);
+                case "getIdentifier":
+                    return ((Account) args[0]).id;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return method.getReturnType().getSimpleName() + " stub";
+                default:
+                    Class<?> type = method.getReturnType();
+                    if (type.isInterface()) {
+                        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, this);
+                    }
+                    return type == boolean.class ? Boolean.FALSE : type == int.class ? Integer.valueOf(0) : null;
+                }
+            }
+        };
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { EntityManager.class }, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <X> SingularAttribute<Account, X> attribute(String name) {
+        Field field;
+        try {
+            field = Account.class.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(name, e);
+        }
+        return (SingularAttribute<Account, X>) Proxy.newProxyInstance(UniqueConstraintsTest.class.getClassLoader(),
+                new Class<?>[] { SingularAttribute.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getName":
+                        return name;
+                    case "getJavaMember":
+                        return field;
+                    case "getJavaType":
+                        return field.getType();
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return name;
+                    default:
+                        return null;
+                    }
+                });
+    }
+}
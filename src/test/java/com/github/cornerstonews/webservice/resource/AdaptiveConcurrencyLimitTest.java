@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.cornerstonews.webservice.resource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.persistence.exceptions.DatabaseException;
+import org.junit.jupiter.api.Test;
+
+import com.github.cornerstonews.webservice.controller.WsController;
+
+/*
+ * Windows are of zero duration, so every 10 releases (MIN_WINDOW_SAMPLES) close one.
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void acquireRespectsTheLimit() {
+        AdaptiveConcurrencyLimit limit = limit(2);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+
+        limit.release(FAST, false);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void slowWindowDecreasesTheLimitOnce() {
+        AdaptiveConcurrencyLimit limit = limit(20);
+        sequentialWindow(limit, FAST, false);
+        assertEquals(20, limit.getLimit());
+        assertEquals(1.0, limit.getBaselineMillis(), 0.001);
+
+        for (int i = 0; i < 9; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(SLOW, false);
+            assertEquals(20, limit.getLimit());
+        }
+        assertTrue(limit.tryAcquire());
+        limit.release(SLOW, false);
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void droppedRequestDecreasesTheLimit() {
+        AdaptiveConcurrencyLimit limit = limit(20);
+        sequentialWindow(limit, FAST, false);
+        sequentialWindow(limit, FAST, true);
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void providerDatabaseFailureCountsAsDropped() throws Exception {
+        // latency never exceeds the tolerance, only the drop can decrease the limit
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 1, 100, 1000, 0.5, Duration.ZERO);
+        AbstractResource<Object, WsController<Object>> resource = new AbstractResource<Object, WsController<Object>>() {
+            @Override
+            protected String getUriPath() {
+                return "items";
+            }
+
+            @Override
+            protected WsController<Object> getController() {
+                return null;
+            }
+        };
+        for (int i = 0; i < 19; i++) {
+            resource.withinLimit(limit, () -> null);
+        }
+        assertThrows(DatabaseException.class, () -> resource.withinLimit(limit, () -> {
+            throw DatabaseException.sqlException(new SQLException("Connection reset", "08006"));
+        }));
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void utilisedFastWindowIncreasesTheLimit() {
+        AdaptiveConcurrencyLimit limit = limit(4);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire());
+            assertTrue(limit.tryAcquire());
+            limit.release(FAST, false);
+            limit.release(FAST, false);
+        }
+        assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    void underutilisedWindowKeepsTheLimit() {
+        AdaptiveConcurrencyLimit limit = limit(20);
+        for (int i = 0; i < 5; i++) {
+            sequentialWindow(limit, FAST, false);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void outlierWindowDoesNotResetTheBaseline() {
+        AdaptiveConcurrencyLimit limit = limit(20);
+        sequentialWindow(limit, FAST, false);
+        sequentialWindow(limit, 100 * FAST, false);
+        assertEquals(10, limit.getLimit());
+        assertEquals(1.99, limit.getBaselineMillis(), 0.001);
+
+        sequentialWindow(limit, 3 * FAST / 2, false);
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(1, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(20, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(5, 1, 10, 0.5, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(5, 1, 10, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(5, 1, 10, 2, 0.9, Duration.ofMillis(-1)));
+    }
+
+    private static AdaptiveConcurrencyLimit limit(int initialLimit) {
+        return new AdaptiveConcurrencyLimit(initialLimit, 1, 100, 2, 0.5, Duration.ZERO);
+    }
+
+    /*
+     * One window of requests running one at a time, the last one dropped when requested.
+     */
+    private static void sequentialWindow(AdaptiveConcurrencyLimit limit, long latencyNanos, boolean dropLast) {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(latencyNanos, dropLast && i == 9);
+        }
+    }
+}